@@ -0,0 +1,83 @@
+package hu.adamsan.jsonparser.benchmark;
+
+import hu.adamsan.jsonparser.JSON;
+import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import hu.adamsan.jsonparser.testmodels.ComplexPerson;
+import hu.adamsan.jsonparser.testmodels.Items;
+import hu.adamsan.jsonparser.testmodels.Person;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding documents to the test models, through the tree with {@code convert} and directly with {@code parse(json, Class)}.
+ * Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConvertBenchmark {
+    @Param({"Person", "ComplexPerson", "AnnotatedItem", "Items"})
+    public String model;
+
+    @Param({"10", "1000", "100000"})
+    public int records;
+
+    @Param({"8", "64"})
+    public int stringLength;
+
+    private String json;
+    private Class<?> arrayType;
+    private JSON tree;
+    private Object models;
+
+    @Setup
+    public void setUp() {
+        switch (model) {
+            case "Person" -> {
+                json = Corpus.people(records, stringLength);
+                arrayType = Person[].class;
+            }
+            case "ComplexPerson" -> {
+                json = Corpus.complexPeople(records, stringLength);
+                arrayType = ComplexPerson[].class;
+            }
+            case "AnnotatedItem" -> {
+                json = Corpus.items(records, stringLength, "tipus");
+                arrayType = AnnotatedItem[].class;
+            }
+            case "Items" -> {
+                json = Corpus.items(records, stringLength, "type");
+                arrayType = Items[].class;
+            }
+            default -> throw new IllegalArgumentException("Unknown model: " + model);
+        }
+        tree = JSON.parse(json);
+        models = tree.convert(arrayType);
+    }
+
+    @Benchmark
+    public Object parseAndConvert() {
+        return JSON.parse(json).convert(arrayType);
+    }
+
+    @Benchmark
+    public Object convert() {
+        return tree.convert(arrayType);
+    }
+
+    @Benchmark
+    public Object parseDirect() {
+        return JSON.parse(json, arrayType);
+    }
+
+    @Benchmark
+    public String write() {
+        StringBuilder out = new StringBuilder();
+        JSON.write(models, out);
+        return out.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package hu.adamsan.jsonparser.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generates the JSON documents the benchmarks run on. The same parameters and seed always give the same document,
+ * so results of different runs are comparable.
+ */
+final class Corpus {
+    private static final long SEED = 20221017L;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int FIELDS = 8;
+
+    private final Random random = new Random(SEED);
+    private final int stringLength;
+    private final StringBuilder out = new StringBuilder();
+
+    private Corpus(int stringLength) {
+        this.stringLength = stringLength;
+    }
+
+    /**
+     * An array of records with {@value FIELDS} fields each, a field holding a number with the given probability
+     * and a string otherwise, the last field of every record nesting another record until the given depth.
+     */
+    static String records(int records, int depth, double numberDensity, int stringLength) {
+        Corpus corpus = new Corpus(stringLength);
+        corpus.out.append('[');
+        for (int i = 0; i < records; i++) {
+            if (i > 0) corpus.out.append(", ");
+            corpus.record(depth, numberDensity);
+        }
+        return corpus.out.append(']').toString();
+    }
+
+    /**
+     * An array of {@code Person} models.
+     */
+    static String people(int records, int stringLength) {
+        Corpus corpus = new Corpus(stringLength);
+        corpus.out.append('[');
+        for (int i = 0; i < records; i++) {
+            if (i > 0) corpus.out.append(", ");
+            corpus.out.append("{\"age\": ").append(corpus.random.nextInt(100));
+            corpus.out.append(", \"firstName\": ").append(corpus.string());
+            corpus.out.append(", \"id\": ").append(corpus.string());
+            corpus.out.append(", \"items\": ");
+            corpus.item("type");
+            corpus.out.append(", \"lastName\": [");
+            for (int j = 0; j < 5; j++) corpus.out.append(j > 0 ? ", " : "").append(corpus.random.nextInt(1000));
+            corpus.out.append("], \"friends\": [");
+            for (int j = 0; j < 3; j++) corpus.out.append(j > 0 ? ", " : "").append(corpus.string());
+            corpus.out.append("]}");
+        }
+        return corpus.out.append(']').toString();
+    }
+
+    /**
+     * An array of {@code ComplexPerson} models, each with a list of {@code AnnotatedItem}s.
+     */
+    static String complexPeople(int records, int stringLength) {
+        Corpus corpus = new Corpus(stringLength);
+        corpus.out.append('[');
+        for (int i = 0; i < records; i++) {
+            if (i > 0) corpus.out.append(", ");
+            corpus.out.append("{\"id\": ").append(i);
+            corpus.out.append(", \"name\": ").append(corpus.string());
+            corpus.out.append(", \"items\": [");
+            for (int j = 0; j < 4; j++) {
+                if (j > 0) corpus.out.append(", ");
+                corpus.item("tipus");
+            }
+            corpus.out.append("]}");
+        }
+        return corpus.out.append(']').toString();
+    }
+
+    /**
+     * An array of {@code Items} models, or of {@code AnnotatedItem} models if the type is stored as "tipus".
+     */
+    static String items(int records, int stringLength, String typeProperty) {
+        Corpus corpus = new Corpus(stringLength);
+        corpus.out.append('[');
+        for (int i = 0; i < records; i++) {
+            if (i > 0) corpus.out.append(", ");
+            corpus.item(typeProperty);
+        }
+        return corpus.out.append(']').toString();
+    }
+
+    private void record(int depth, double numberDensity) {
+        out.append('{');
+        for (int field = 0; field < FIELDS; field++) {
+            if (field > 0) out.append(", ");
+            out.append("\"field").append(field).append("\": ");
+            if (field == FIELDS - 1 && depth > 1) record(depth - 1, numberDensity);
+            else if (random.nextDouble() < numberDensity) number();
+            else out.append(string());
+        }
+        out.append('}');
+    }
+
+    private void item(String typeProperty) {
+        out.append("{\"name\": ").append(string());
+        out.append(", \"price\": ").append(random.nextInt(100_000) / 100.0);
+        out.append(", \"").append(typeProperty).append("\": ").append(string()).append('}');
+    }
+
+    private void number() {
+        if (random.nextBoolean()) out.append(random.nextInt());
+        else out.append(random.nextDouble() * 1000);
+    }
+
+    private String string() {
+        char[] chars = new char[stringLength];
+        for (int i = 0; i < chars.length; i++) chars[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        return '"' + new String(chars) + '"';
+    }
+}
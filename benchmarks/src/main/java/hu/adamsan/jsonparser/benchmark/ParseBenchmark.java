@@ -0,0 +1,78 @@
+package hu.adamsan.jsonparser.benchmark;
+
+import hu.adamsan.jsonparser.JSON;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing generic documents into a tree, and writing the tree back with {@code toString}.
+ * Run with {@code -prof gc} to see the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int records;
+
+    @Param({"1", "4"})
+    public int depth;
+
+    @Param({"0.2", "0.8"})
+    public double numberDensity;
+
+    @Param({"8", "64"})
+    public int stringLength;
+
+    private String json;
+    private byte[] bytes;
+    private JSON tree;
+    private ByteBuffer binary;
+
+    @Setup
+    public void setUp() {
+        json = Corpus.records(records, depth, numberDensity, stringLength);
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+        tree = JSON.parse(json);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.toBinary(out);
+        binary = ByteBuffer.wrap(out.toByteArray());
+    }
+
+    @Benchmark
+    public JSON parse() {
+        return JSON.parse(json);
+    }
+
+    @Benchmark
+    public JSON parseBytes() {
+        return JSON.parse(bytes);
+    }
+
+    @Benchmark
+    public JSON parseLazy() {
+        return JSON.parseLazy(json);
+    }
+
+    @Benchmark
+    public JSON fromBinary() {
+        return JSON.fromBinary(binary);
+    }
+
+    @Benchmark
+    public String treeToString() {
+        return tree.toString();
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return JSON.parse(json).toString();
+    }
+}
@@ -0,0 +1,251 @@
+package hu.adamsan.jsonparser.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@code JsonBinder} for every class annotated with {@code @JsonModel}, with a {@code switch}
+ * on the JSON property names calling the setters directly, and registers the binders as services,
+ * so {@code JSON.convert} finds them with {@link java.util.ServiceLoader}.
+ * Properties are resolved like the reflective conversion does: every non-static field with a setter,
+ * named by its {@code @JsonPropertyName} if it has one. Setters generated by Lombok are not visible yet
+ * while processing, so a field of a class or a field annotated with {@code @Setter} or {@code @Data} is taken to have one.
+ */
+@SupportedAnnotationTypes(JsonBinderProcessor.JSON_MODEL)
+public class JsonBinderProcessor extends AbstractProcessor {
+    static final String JSON_MODEL = "hu.adamsan.jsonparser.JsonModel";
+    private static final String JSON_PROPERTY_NAME = "hu.adamsan.jsonparser.JsonPropertyName";
+    private static final String SERVICE_FILE = "META-INF/services/hu.adamsan.jsonparser.JsonBinder";
+    private static final Set<String> LOMBOK_SETTERS = Set.of("lombok.Setter", "lombok.Data");
+
+    private final Set<String> binders = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)
+                        || type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+                    error(type, "@JsonModel can only be used on concrete top-level or static nested classes");
+                } else if (!hasNoArgConstructor(type)) {
+                    error(type, "@JsonModel classes need a constructor without parameters");
+                } else {
+                    generate(type);
+                }
+            }
+        }
+        if (roundEnv.processingOver() && !binders.isEmpty()) writeServiceFile();
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String binderName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('$', '_')
+                + "_JsonBinder";
+        String model = type.getQualifiedName().toString();
+
+        Map<String, String> typeTokens = new LinkedHashMap<>();
+        Map<String, String> properties = properties(type, typeTokens);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+        source.append("import hu.adamsan.jsonparser.JSON;\n");
+        source.append("import hu.adamsan.jsonparser.JsonBinder;\n");
+        if (!typeTokens.isEmpty()) source.append("import hu.adamsan.jsonparser.TypeToken;\n");
+        source.append("\n");
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        source.append("public final class ").append(binderName).append(" implements JsonBinder<").append(model).append("> {\n");
+        typeTokens.forEach((name, generic) -> source.append("    private static final TypeToken<").append(generic).append("> ")
+                .append(name).append(" = new TypeToken<>() {\n    };\n\n"));
+        source.append("    @Override\n");
+        source.append("    public Class<").append(model).append("> type() {\n");
+        source.append("        return ").append(model).append(".class;\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    public ").append(model).append(" newInstance() {\n");
+        source.append("        return new ").append(model).append("();\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    public boolean set(").append(model).append(" target, String jsonPropertyName, JSON value) {\n");
+        source.append("        switch (jsonPropertyName) {\n");
+        properties.forEach((jsonName, setter) -> source.append("            case ").append(quote(jsonName))
+                .append(" -> target.").append(setter).append(";\n"));
+        source.append("            default -> {\n");
+        source.append("                return false;\n");
+        source.append("            }\n");
+        source.append("        }\n");
+        source.append("        return true;\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        String qualifiedBinderName = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedBinderName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(type, "Could not write " + qualifiedBinderName + ": " + e.getMessage());
+            return;
+        }
+        binders.add(qualifiedBinderName);
+    }
+
+    /**
+     * Maps the JSON property names to the setter calls, a later field wins if two use the same name, like in reflection.
+     * The generic types the calls need are added to the type tokens, by the name of their constant.
+     */
+    private Map<String, String> properties(TypeElement type, Map<String, String> typeTokens) {
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        boolean lombokClass = hasAnnotation(type, LOMBOK_SETTERS);
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) continue;
+            String fieldName = field.getSimpleName().toString();
+            String setter = methods.stream()
+                    .filter(m -> m.getSimpleName().toString().equalsIgnoreCase("set" + fieldName))
+                    .filter(m -> m.getParameters().size() == 1 && m.getModifiers().contains(Modifier.PUBLIC))
+                    .map(m -> m.getSimpleName().toString())
+                    .findFirst()
+                    .orElse(lombokClass || hasAnnotation(field, LOMBOK_SETTERS) ? "set" + capitalize(fieldName) : null);
+            if (setter == null) continue;
+            String jsonName = jsonPropertyName(field);
+            properties.remove(jsonName);
+            properties.put(jsonName, setter + "(" + valueExpression(field, typeTokens) + ")");
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the expression converting {@code value} to the type of the field.
+     */
+    private String valueExpression(VariableElement field, Map<String, String> typeTokens) {
+        TypeMirror type = field.asType();
+        if (type.getKind().isPrimitive()) return "value.convert(" + type + ".class)";
+        if (needsTypeToken(type)) {
+            String constant = field.getSimpleName().toString().replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                    .toUpperCase(Locale.ROOT) + "_TYPE";
+            typeTokens.put(constant, type.toString());
+            return "value.convert(" + constant + ")";
+        }
+        String collection = collectionOf(type);
+        if (collection != null) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+            String item = arguments.isEmpty() ? "Object" : processingEnv.getTypeUtils().erasure(arguments.get(0)).toString();
+            return "value.convertCollection(" + collection + ".class, " + item + ".class)";
+        }
+        return "value.convert(" + processingEnv.getTypeUtils().erasure(type) + ".class)";
+    }
+
+    /**
+     * Returns the List or Set interface the type is assignable to, or null.
+     */
+    private String collectionOf(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) return null;
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        for (String collection : List.of("java.util.List", "java.util.Set")) {
+            TypeMirror collectionType = processingEnv.getTypeUtils().erasure(
+                    processingEnv.getElementUtils().getTypeElement(collection).asType());
+            if (processingEnv.getTypeUtils().isAssignable(erasure, collectionType)) return collection;
+        }
+        return null;
+    }
+
+    /**
+     * Whether the conversion needs the whole generic type, kept in a {@code TypeToken} constant: for maps and
+     * other generic types, and for collections and arrays of generic items, like {@code List<List<Line>>}.
+     * Types with type variables are converted by their erasure, a constant could not name them.
+     */
+    private boolean needsTypeToken(TypeMirror type) {
+        if (hasTypeVariable(type)) return false;
+        if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror component = ((ArrayType) type).getComponentType();
+            return isParameterized(component) || needsTypeToken(component);
+        }
+        if (!isParameterized(type)) return false;
+        if (collectionOf(type) == null) return true;
+        TypeMirror item = ((DeclaredType) type).getTypeArguments().get(0);
+        return item.getKind() != TypeKind.DECLARED || isParameterized(item);
+    }
+
+    private static boolean isParameterized(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && !((DeclaredType) type).getTypeArguments().isEmpty();
+    }
+
+    private static boolean hasTypeVariable(TypeMirror type) {
+        return switch (type.getKind()) {
+            case TYPEVAR -> true;
+            case ARRAY -> hasTypeVariable(((ArrayType) type).getComponentType());
+            case DECLARED -> ((DeclaredType) type).getTypeArguments().stream().anyMatch(JsonBinderProcessor::hasTypeVariable);
+            case WILDCARD -> {
+                WildcardType wildcard = (WildcardType) type;
+                yield wildcard.getExtendsBound() != null && hasTypeVariable(wildcard.getExtendsBound())
+                        || wildcard.getSuperBound() != null && hasTypeVariable(wildcard.getSuperBound());
+            }
+            default -> false;
+        };
+    }
+
+    private String jsonPropertyName(VariableElement field) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            if (!annotation.getAnnotationType().toString().equals(JSON_PROPERTY_NAME)) continue;
+            for (var entry : annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("name")) return (String) entry.getValue().getValue();
+            }
+        }
+        return field.getSimpleName().toString();
+    }
+
+    private static boolean hasNoArgConstructor(TypeElement type) {
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+    }
+
+    private static boolean hasAnnotation(Element element, Set<String> names) {
+        return element.getAnnotationMirrors().stream().anyMatch(a -> names.contains(a.getAnnotationType().toString()));
+    }
+
+    private void writeServiceFile() {
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openWriter()) {
+            for (String binder : binders) writer.write(binder + "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,151 @@
+package hu.adamsan.jsonparser.processor;
+
+import hu.adamsan.jsonparser.JSON;
+import hu.adamsan.jsonparser.JsonBinder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonBinderProcessorTest {
+    private static final String ORDER = """
+            package shop;
+
+            import hu.adamsan.jsonparser.JsonModel;
+            import hu.adamsan.jsonparser.JsonPropertyName;
+
+            import java.util.List;
+            import java.util.Map;
+
+            @JsonModel
+            public class Order {
+                private int id;
+                @JsonPropertyName(name = "customer name")
+                private String customer;
+                private List<Line> lines;
+                private Map<String, List<Line>> byProduct;
+                private String internal;
+
+                public int getId() { return id; }
+                public void setId(int id) { this.id = id; }
+                public String getCustomer() { return customer; }
+                public void setCustomer(String customer) { this.customer = customer; }
+                public List<Line> getLines() { return lines; }
+                public void setLines(List<Line> lines) { this.lines = lines; }
+                public Map<String, List<Line>> getByProduct() { return byProduct; }
+                public void setByProduct(Map<String, List<Line>> byProduct) { this.byProduct = byProduct; }
+
+                @JsonModel
+                public static class Line {
+                    private String product;
+                    private Double price;
+
+                    public String getProduct() { return product; }
+                    public void setProduct(String product) { this.product = product; }
+                    public Double getPrice() { return price; }
+                    public void setPrice(Double price) { this.price = price; }
+                }
+            }
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void assertGeneratedBindersAreRegisteredAndBindProperties() throws Exception {
+        Path source = dir.resolve("shop/Order.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, ORDER);
+        compile(source);
+
+        assertThat(dir.resolve("shop/Order_JsonBinder.java")).exists();
+        assertThat(dir.resolve("shop/Order_Line_JsonBinder.java")).exists();
+        assertThat(Files.readAllLines(dir.resolve("META-INF/services/hu.adamsan.jsonparser.JsonBinder")))
+                .containsExactly("shop.Order_JsonBinder", "shop.Order_Line_JsonBinder");
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, JsonBinder.class.getClassLoader())) {
+            List<JsonBinder<?>> binders = ServiceLoader.load(JsonBinder.class, loader).stream()
+                    .<JsonBinder<?>>map(ServiceLoader.Provider::get).toList();
+            assertThat(binders).extracting(binder -> binder.type().getName())
+                    .containsExactly("shop.Order", "shop.Order$Line");
+
+            JsonBinder<Object> orderBinder = (JsonBinder<Object>) binders.get(0);
+            Object order = orderBinder.newInstance();
+            JSON json = JSON.parse("{\"id\": 7, \"customer name\": \"Ann\", \"internal\": \"x\", \"lines\": [{\"product\": \"gear\"}],"
+                    + " \"byProduct\": {\"gear\": [{\"product\": \"gear\"}]}}");
+            assertThat(orderBinder.set(order, "id", json.get("id"))).isTrue();
+            assertThat(orderBinder.set(order, "customer name", json.get("customer name"))).isTrue();
+            assertThat(orderBinder.set(order, "customer", json.get("customer name"))).isFalse();
+            assertThat(orderBinder.set(order, "internal", json.get("internal"))).isFalse();
+            assertThat(orderBinder.set(order, "lines", json.get("lines"))).isTrue();
+            assertThat(orderBinder.set(order, "byProduct", json.get("byProduct"))).isTrue();
+
+            Class<?> orderClass = orderBinder.type();
+            assertThat(orderClass.getMethod("getId").invoke(order)).isEqualTo(7);
+            assertThat(orderClass.getMethod("getCustomer").invoke(order)).isEqualTo("Ann");
+            List<?> lines = (List<?>) orderClass.getMethod("getLines").invoke(order);
+            assertThat(lines.get(0).getClass().getMethod("getProduct").invoke(lines.get(0))).isEqualTo("gear");
+            Map<?, ?> byProduct = (Map<?, ?>) orderClass.getMethod("getByProduct").invoke(order);
+            Object line = ((List<?>) byProduct.get("gear")).get(0);
+            assertThat(line.getClass().getMethod("getProduct").invoke(line)).isEqualTo("gear");
+        }
+    }
+
+    /**
+     * The library tests use a binder checked in as the processor's output, since they are not compiled with it.
+     */
+    @Test
+    void assertCheckedInBinderOfTheLibraryTestsIsUpToDate() throws IOException {
+        Path testModels = Path.of("..", "src", "test", "java", "hu", "adamsan", "jsonparser", "testmodels");
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, "-proc:only", "-d", dir.toString(), "-s", dir.toString(),
+                "-cp", System.getProperty("java.class.path"), "-processor", JsonBinderProcessor.class.getName(),
+                testModels.resolve("Coordinates.java").toString());
+        assertThat(result).as(errors.toString(StandardCharsets.UTF_8)).isZero();
+
+        assertThat(testModels.resolve("Coordinates_JsonBinder.java"))
+                .as("regenerate it from %s", dir.resolve("hu/adamsan/jsonparser/testmodels/Coordinates_JsonBinder.java"))
+                .hasSameTextualContentAs(dir.resolve("hu/adamsan/jsonparser/testmodels/Coordinates_JsonBinder.java"));
+    }
+
+    @Test
+    void assertClassesWithoutNoArgConstructorAreRejected() throws IOException {
+        Path source = dir.resolve("Point.java");
+        Files.writeString(source, """
+                @hu.adamsan.jsonparser.JsonModel
+                public class Point {
+                    public Point(int x) {
+                    }
+                }
+                """);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = ToolProvider.getSystemJavaCompiler().run(null, null, errors, "-d", dir.toString(),
+                "-cp", System.getProperty("java.class.path"), "-processor", JsonBinderProcessor.class.getName(),
+                source.toString());
+        assertThat(result).isNotZero();
+        assertThat(errors.toString(StandardCharsets.UTF_8)).contains("need a constructor without parameters");
+    }
+
+    private void compile(Path source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors, "-d", dir.toString(), "-s", dir.toString(),
+                "-cp", System.getProperty("java.class.path"), "-processor", JsonBinderProcessor.class.getName(),
+                source.toString());
+        assertThat(result).as(errors.toString(StandardCharsets.UTF_8)).isZero();
+    }
+}
@@ -0,0 +1,108 @@
+package hu.adamsan.jsonparser;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binding metadata of a model class: its no-arg constructor and the setters belonging to each JSON property name.
+ * Resolved once per class and cached, the setters are invoked through method handles adapted to a common type.
+ */
+final class ClassBinding {
+    private static final ClassValue<ClassBinding> CACHE = new ClassValue<>() {
+        @Override
+        protected ClassBinding computeValue(Class<?> type) {
+            return new ClassBinding(type);
+        }
+    };
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> clazz;
+    private final MethodHandle constructor;
+    private final Map<String, Property> properties = new HashMap<>();
+
+    private ClassBinding(Class<?> clazz) {
+        this.clazz = clazz;
+        this.constructor = findConstructor(clazz);
+        Method[] methods = clazz.getMethods();
+        for (Field field : clazz.getDeclaredFields()) {
+            String jsonPropertyName = SetterNameFinder.jsonPropertyName(field);
+            var setterName = "set" + field.getName();
+            Arrays.stream(methods)
+                    .filter(m -> m.getName().equalsIgnoreCase(setterName))
+                    .filter(m -> m.getParameterCount() == 1)
+                    .findFirst()
+                    .ifPresent(method -> properties.put(jsonPropertyName, new Property(method)));
+        }
+    }
+
+    static ClassBinding of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    Object newInstance() throws ReflectiveOperationException {
+        if (constructor == null) throw new NoSuchMethodException(clazz.getName() + ".<init>()");
+        try {
+            return constructor.invokeExact();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    /**
+     * Returns the property bound to the given JSON property name, or null if the class has no setter for it.
+     */
+    Property property(String jsonPropertyName) {
+        return properties.get(jsonPropertyName);
+    }
+
+    private static MethodHandle findConstructor(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getConstructor();
+            constructor.trySetAccessible();
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    static final class Property {
+        final TypeBinding binding;
+        private final MethodHandle setter;
+
+        private Property(Method method) {
+            this.binding = TypeBinding.of(method.getGenericParameterTypes()[0]);
+            this.setter = unreflect(method).asType(SETTER_TYPE);
+        }
+
+        void set(Object target, Object value) throws ReflectiveOperationException {
+            try {
+                setter.invokeExact(target, value);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        }
+
+        private static MethodHandle unreflect(Method method) {
+            method.trySetAccessible();
+            try {
+                return MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Setter is not accessible: " + method, e);
+            }
+        }
+    }
+}
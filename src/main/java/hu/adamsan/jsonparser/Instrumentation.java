@@ -0,0 +1,160 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+import hu.adamsan.jsonparser.JsonMetrics.Operation;
+import jdk.jfr.*;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Flight Recorder events and the {@link JsonMetrics} listener around the public entry points.
+ * The events follow the usual pattern: creating, beginning and ending an event that is not enabled compiles to
+ * almost nothing, and the size of the tree is only counted for events that are going to be committed.
+ * The events have a threshold of 1 ms by default, so only the slow operations are recorded.
+ * Without a listener installed the only other cost is reading a volatile field.
+ * Nested conversions are part of the event of the outermost one, except the ones made by generated binders,
+ * which can only call the public {@link JSON#convert(Class)}.
+ */
+final class Instrumentation {
+    static volatile JsonMetrics metrics;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Returns the start time for the listener, or 0 if there is none.
+     */
+    static long start() {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param tree the parsed tree, or null if it is not to be walked
+     */
+    static void parsed(ParseEvent event, JSON tree, Type type, long size, long start) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.size = size;
+            event.targetClass = rawClass(type);
+            if (tree != null) {
+                int[] nodes = new int[1];
+                event.maxDepth = walk(tree, 0, nodes);
+                event.nodes = nodes[0];
+            }
+            event.commit();
+        }
+        record(Operation.PARSE, rawClass(type), size, start);
+    }
+
+    static void converted(ConvertEvent event, JSON tree, Class<?> type, long start) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.targetClass = type;
+            int[] nodes = new int[1];
+            event.maxDepth = walk(tree, 0, nodes);
+            event.nodes = nodes[0];
+            event.commit();
+        }
+        record(Operation.CONVERT, type, 0, start);
+    }
+
+    static void written(WriteEvent event, Class<?> type, long size, long start) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.targetClass = type;
+            event.size = size;
+            event.commit();
+        }
+        record(Operation.WRITE, type, size, start);
+    }
+
+    private static void record(Operation operation, Class<?> type, long size, long start) {
+        JsonMetrics listener = metrics;
+        if (listener != null && start != 0) listener.record(operation, type, size, System.nanoTime() - start);
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> clazz) return clazz;
+        if (type instanceof ParameterizedType parameterized) return (Class<?>) parameterized.getRawType();
+        return null;
+    }
+
+    /**
+     * Counts the nodes below the given one and returns the deepest nesting of arrays and objects.
+     * Packed arrays are counted without creating their number nodes, and lazily parsed containers
+     * that were not accessed yet count as one node, so walking never materializes anything.
+     */
+    private static int walk(JSON node, int depth, int[] nodes) {
+        nodes[0]++;
+        if (node instanceof JSONArray array) {
+            if (array.longs != null || array.doubles != null) {
+                nodes[0] += array.items.size();
+                return depth + 1;
+            }
+            int maxDepth = depth + 1;
+            if (array.items != null) for (JSON item : array.items) maxDepth = Math.max(maxDepth, walk(item, depth + 1, nodes));
+            return maxDepth;
+        }
+        if (node instanceof JSONObject object) {
+            int maxDepth = depth + 1;
+            if (object.map != null) {
+                for (Map.Entry<JSONString, JSON> e : object.map.entrySet())
+                    maxDepth = Math.max(maxDepth, walk(e.getValue(), depth + 1, nodes));
+            }
+            return maxDepth;
+        }
+        return depth;
+    }
+
+    @Name("hu.adamsan.jsonparser.Parse")
+    @Label("JSON Parse")
+    @Category("JSON")
+    @Threshold("1 ms")
+    @Description("A document parsed into a tree or bound to a class")
+    static final class ParseEvent extends Event {
+        @Label("Size")
+        @Description("Length of the input, in chars for strings and in bytes otherwise")
+        long size;
+
+        @Label("Nodes")
+        int nodes;
+
+        @Label("Max Depth")
+        int maxDepth;
+
+        @Label("Target Class")
+        Class<?> targetClass;
+    }
+
+    @Name("hu.adamsan.jsonparser.Convert")
+    @Label("JSON Convert")
+    @Category("JSON")
+    @Threshold("1 ms")
+    @Description("A tree converted to a class")
+    static final class ConvertEvent extends Event {
+        @Label("Nodes")
+        int nodes;
+
+        @Label("Max Depth")
+        int maxDepth;
+
+        @Label("Target Class")
+        Class<?> targetClass;
+    }
+
+    @Name("hu.adamsan.jsonparser.Write")
+    @Label("JSON Write")
+    @Category("JSON")
+    @Threshold("1 ms")
+    @Description("A value written as JSON text")
+    static final class WriteEvent extends Event {
+        @Label("Size")
+        @Description("Length of the output in chars")
+        long size;
+
+        @Label("Value Class")
+        Class<?> targetClass;
+    }
+}
@@ -1,10 +1,16 @@
 package hu.adamsan.jsonparser;
 
+import java.io.*;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toSet;
@@ -14,80 +20,354 @@ public sealed abstract class JSON {
     }
 
     public static JSON parse(String json) {
-        json = json.trim();
-        if (isString(json)) return new JSONString(json);
-        if (isNumber(json)) return new JSONNumber(json);
-        if (isNull(json)) return new JSONNull();
-        if (isArray(json)) return new JSONArray(json);
-        if (isObject(json)) return new JSONObject(json);
-        throw new JsonParseException("Could not parse:\n" + json);
+        return new JsonParser().parse(json);
     }
 
-    private static boolean isObject(String json) {
-        return json.startsWith("{") && json.endsWith("}");
+    /**
+     * Parses the JSON string straight into an instance of the given class, without building the tree of JSON nodes.
+     * Uses the same property names and setters as {@link #convert(Class)}.
+     */
+    public static <T> T parse(String json, Class<T> clazz) {
+        return parse(json, (Type) clazz);
     }
 
-    private static boolean isArray(String json) {
-        return json.startsWith("[") && json.endsWith("]");
+    /**
+     * Like {@link #parse(String, Class)}, for generic types like {@code List<Person>} or {@code Map<String, Item>}.
+     */
+    public static <T> T parse(String json, Type type) {
+        return parse(json, TypeBinding.of(type));
     }
 
-    private static boolean isNull(String json) {
-        return "null".equals(json);
+    /**
+     * Like {@link #parse(String, Type)}, with a type captured by a {@link TypeToken},
+     * e.g. {@code new TypeToken<Map<String, List<Item>>>() {}}.
+     */
+    public static <T> T parse(String json, TypeToken<T> type) {
+        return parse(json, type.binding());
     }
 
-    private static boolean isNumber(String json) {
-        if (json == null) return false;
+    private static <T> T parse(String json, TypeBinding binding) {
+        Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        T value = StreamingBinder.bind(json, binding);
+        Instrumentation.parsed(event, null, binding.type, json.length(), start);
+        return value;
+    }
+
+    public static JSON parse(byte[] json) {
+        return parse(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Parses the UTF-8 encoded bytes between the position and the limit of the buffer, leaving the position unchanged.
+     */
+    public static JSON parse(ByteBuffer json) {
+        Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JSON value = new Utf8JsonParser().parse(json);
+        Instrumentation.parsed(event, value, null, json.remaining(), start);
+        return value;
+    }
+
+    /**
+     * Parses a UTF-8 encoded file by memory mapping it, so its content is never copied onto the heap as a whole.
+     * The file is mapped at once, so it can be at most {@link Integer#MAX_VALUE} bytes long.
+     */
+    public static JSON parse(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(map(channel));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Like {@link #parse(String)}, but a large top-level array is split into its items and they are parsed on all cores.
+     * Other documents, and documents below a megabyte, are parsed sequentially.
+     */
+    public static JSON parseParallel(String json) {
+        Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JSON value = ParallelArrayParser.parse(json);
+        Instrumentation.parsed(event, value, null, json.length(), start);
+        return value;
+    }
+
+    /**
+     * Like {@link #parseParallel(String)} for a memory mapped, UTF-8 encoded file. A top-level array is mapped
+     * in segments of a gigabyte, so it can be larger than 2 GB as long as each of its items fits in a segment.
+     * Other documents can be at most {@link Integer#MAX_VALUE} bytes long.
+     */
+    public static JSON parseParallel(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+            event.begin();
+            long start = Instrumentation.start();
+            JSON value = ParallelArrayParser.parse(channel, ParallelArrayParser.SEGMENT_SIZE);
+            Instrumentation.parsed(event, value, null, channel.size(), start);
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a newline delimited JSON file, one value per line, on all cores. The stream is ordered,
+     * call {@link Stream#unordered()} on it if the values may arrive in any order. Blank lines are skipped.
+     * The first malformed line throws a {@link JsonLineException}, use {@link #parseLines(Path, Consumer)} to go on instead.
+     */
+    public static Stream<JSON> parseLines(Path file) {
+        return parseLines(file, e -> {
+            throw e;
+        });
+    }
+
+    /**
+     * Like {@link #parseLines(Path)}, passing the malformed lines to the given handler and leaving them out of the stream.
+     * The handler is called from the threads parsing the lines, one call at a time, but not in the order of the lines.
+     */
+    public static Stream<JSON> parseLines(Path file, Consumer<? super JsonLineException> errors) {
+        return JsonLines.parse(file, errors);
+    }
+
+    /**
+     * Like {@link #parseLines(Path)}, binding each line to the given class like {@link #parse(String, Class)}.
+     */
+    public static <T> Stream<T> parseLines(Path file, Class<T> clazz) {
+        return parseLines(file, clazz, e -> {
+            throw e;
+        });
+    }
+
+    /**
+     * Like {@link #parseLines(Path, Class)}, passing the lines that fail to parse or bind to the given handler.
+     * The handler is called like the one of {@link #parseLines(Path, Consumer)}.
+     */
+    public static <T> Stream<T> parseLines(Path file, Class<T> clazz, Consumer<? super JsonLineException> errors) {
+        return JsonLines.bind(file, clazz, errors);
+    }
+
+    /**
+     * Writes the value as compact JSON text: models through their getters, honoring {@link JsonPropertyName},
+     * maps as objects, collections and arrays as arrays.
+     */
+    public static void write(Object value, Appendable out) {
+        Instrumentation.WriteEvent event = new Instrumentation.WriteEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JsonOutput output = new JsonOutput(out);
+        new ObjectSerializer(output).write(value);
+        output.flush();
+        Instrumentation.written(event, value == null ? null : value.getClass(), output.length(), start);
+    }
+
+    /**
+     * Writes the value as UTF-8 encoded JSON text, the stream is flushed but not closed.
+     */
+    public static void write(Object value, OutputStream out) {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        write(value, writer);
         try {
-            Double.parseDouble(json);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
-    private static boolean isString(String json) {
-        return json.startsWith("\"") && json.endsWith("\"");
+    /**
+     * Parses the structure of the document in one pass, but creates the nodes of object properties and array items
+     * only when they are accessed with {@link #get(String)} or {@link #get(int)}.
+     */
+    public static JSON parseLazy(String json) {
+        Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JSON value = JsonTape.parse(json);
+        Instrumentation.parsed(event, null, null, json.length(), start);
+        return value;
     }
 
-    private static List<Integer> findCommaIndexes(String inside) {
-        Deque<Character> q = new LinkedList<>();
-        return IntStream.range(0, inside.length())
-                .peek(i -> {
-                    char c = inside.charAt(i);
-                    switch (c) {
-                        case '{' -> q.push('}');
-                        case '[' -> q.push(']');
-                        case ']', '}' -> {
-                            if (!q.isEmpty() && q.peek() == c) q.pop();
-                        }
-                    }
-                })
-                .filter(i -> inside.charAt(i) == ',' && q.size() == 0)
-                .boxed().toList();
+    /**
+     * Checks that the text is a single JSON value exactly as RFC 8259 defines it, within the
+     * {@link JsonLimits#defaults() default limits}, without creating any nodes.
+     * The first problem throws a {@link JsonParseException} with its position.
+     */
+    public static void validate(String json) {
+        validate(json, JsonLimits.defaults());
+    }
+
+    public static void validate(String json, JsonLimits limits) {
+        JsonValidator.validate(json, limits);
+    }
+
+    /**
+     * Like {@link #validate(String)}, for UTF-8 encoded bytes, which must be well-formed UTF-8 as well.
+     * Positions are byte offsets.
+     */
+    public static void validate(byte[] json) {
+        validate(json, JsonLimits.defaults());
+    }
+
+    public static void validate(byte[] json, JsonLimits limits) {
+        JsonValidator.validate(json, limits);
+    }
+
+    /**
+     * Like {@link #validate(byte[])}, reading the stream to its end through a small buffer, so documents of any size
+     * can be checked. The stream is not closed.
+     */
+    public static void validate(InputStream json) {
+        validate(json, JsonLimits.defaults());
+    }
+
+    public static void validate(InputStream json, JsonLimits limits) {
+        JsonValidator.validate(json, limits);
+    }
+
+    /**
+     * Installs a listener told about every parse, convert and write, or removes it with null.
+     * The Flight Recorder events of the same operations are recorded independently of it.
+     */
+    public static void setMetrics(JsonMetrics metrics) {
+        Instrumentation.metrics = metrics;
+    }
+
+    /**
+     * Reads a tree written by {@link #toBinary(OutputStream)} from the bytes between the position and the limit
+     * of the buffer, leaving the position unchanged.
+     */
+    public static JSON fromBinary(ByteBuffer binary) {
+        return JsonBinary.read(binary);
+    }
+
+    /**
+     * Like {@link #fromBinary(ByteBuffer)}, reading the file by memory mapping it. The file is mapped at once,
+     * so it can be at most {@link Integer#MAX_VALUE} bytes long.
+     */
+    public static JSON fromBinary(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return fromBinary(map(channel));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) throw new JsonParseException("File is longer than " + Integer.MAX_VALUE + " bytes");
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Writes the tree in a compact binary form, which {@link #fromBinary(ByteBuffer)} reads back into an equal tree
+     * much faster than the text could be parsed. The stream is flushed but not closed.
+     */
+    public void toBinary(OutputStream out) {
+        JsonBinary.write(this, out);
+    }
+
+    /**
+     * Writes the tree as compact JSON text in one pass, without building the text of the nodes first.
+     */
+    public void writeTo(Appendable out) {
+        writeTo(out, false);
     }
 
-    private static char findSpecialCharNotInString(String inside) {
-        char specialChar = 'ⶔ';
-        while (inside.indexOf(specialChar) > 0) specialChar++; // in case above char occures in the string.
-        return specialChar;
+    /**
+     * Like {@link #writeTo(Appendable)}, pretty printed with two spaces of indentation if asked for.
+     */
+    public void writeTo(Appendable out, boolean pretty) {
+        TreeWriter.write(this, out, pretty ? TreeWriter.Style.PRETTY : TreeWriter.Style.COMPACT);
     }
 
-    protected static Stream<String> splitByIndexes(String inside, List<Integer> commaIndexes) {
-        StringBuilder builder = new StringBuilder(inside);
-        char splitBy = findSpecialCharNotInString(inside);
-        commaIndexes.forEach(i -> builder.setCharAt(i, splitBy));
-        return Arrays.stream(builder.toString().split(String.valueOf(splitBy)));
+    /**
+     * Writes the tree as UTF-8 encoded JSON text, the stream is flushed but not closed.
+     */
+    public void writeTo(OutputStream out) {
+        writeTo(out, false);
+    }
+
+    public void writeTo(OutputStream out, boolean pretty) {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writeTo(writer, pretty);
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the value of the given property, or null if this is not an object or it has no such property.
+     */
+    public JSON get(String name) {
+        return null;
+    }
+
+    /**
+     * Returns the item at the given index, or null if this is not an array or the index is out of its bounds.
+     */
+    public JSON get(int index) {
+        return null;
     }
 
     public abstract <T> T convert(Class<T> clazz);
 
+    /**
+     * Converts the tree to a generic type like {@code List<List<Person>>}, captured by a {@link TypeToken}.
+     * Objects converted to an {@code Object} or a {@code Map} become a {@link LinkedHashMap}, arrays a {@link List}.
+     */
+    public <T> T convert(TypeToken<T> type) {
+        Instrumentation.ConvertEvent event = new Instrumentation.ConvertEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        T value = (T) convertValue(type.binding());
+        Instrumentation.converted(event, this, type.getRawType(), start);
+        return value;
+    }
+
+    /**
+     * Converts a value nested in the one being converted, outside of the instrumentation of {@link #convert(Class)}.
+     */
+    <T> T convertValue(Class<T> clazz) {
+        return convert(clazz);
+    }
+
+    /**
+     * Like {@link #convertValue(Class)}, following the type arguments of the binding into arrays, collections and maps.
+     */
+    Object convertValue(TypeBinding binding) {
+        return convertValue(binding.rawType);
+    }
+
+    /**
+     * Converts an array to a {@link List} or a {@link Set} of the given item class, null stays null.
+     */
+    public <T> T convertCollection(Class<?> collectionType, Class<?> itemClass) {
+        throw new JsonConversionException(toString(), collectionType, null);
+    }
+
     static final class JSONString extends JSON {
         String value;
 
         public JSONString(String value) {
             if (!value.startsWith("\"") || !value.endsWith("\""))
                 throw new IllegalArgumentException("parameter did not start or end with '\"':\n" + value);
-            this.value = value.substring(1, value.length() - 1);
+            String content = value.substring(1, value.length() - 1);
+            this.value = content.indexOf('\\') < 0 ? content : JsonStrings.unescape(content, 0, content.length());
+            if (this.value == null) throw new IllegalArgumentException("invalid escape sequence:\n" + value);
+        }
+
+        private JSONString() {
+        }
+
+        static JSONString of(String value) {
+            JSONString string = new JSONString();
+            string.value = value;
+            return string;
         }
 
         @Override
@@ -100,12 +380,16 @@ public sealed abstract class JSON {
 
         @Override
         public int hashCode() {
-            return Objects.hash(value);
+            return value.hashCode();
         }
 
         @Override
         public String toString() {
-            return '"' + value + '"';
+            StringBuilder text = new StringBuilder(value.length() + 2);
+            JsonOutput out = new JsonOutput(text);
+            out.writeString(value);
+            out.flush();
+            return text.toString();
         }
 
         @Override
@@ -114,48 +398,235 @@ public sealed abstract class JSON {
         }
     }
 
+    /**
+     * Keeps integers as a primitive long and other numbers as a primitive double, parsed by a hand-written scanner.
+     * Only numbers that fit neither are kept as a BigDecimal, which is otherwise created on demand.
+     */
     static final class JSONNumber extends JSON {
-        BigDecimal value;
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+        private static final int MAX_LONG_DIGITS = 18;
+        private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+
+        long longValue;
+        double doubleValue;
+        BigDecimal bigValue;
+        boolean isLong;
 
         public JSONNumber(String json) {
-            try {
-                this.value = BigDecimal.valueOf(Long.parseLong(json));
-            } catch (NumberFormatException ex) {
-                this.value = BigDecimal.valueOf(Double.parseDouble(json));
+            this(json, 0, json.length());
+        }
+
+        JSONNumber(CharSequence json, int start, int end) {
+            scan(json, start, end);
+        }
+
+        JSONNumber() {
+        }
+
+        static JSONNumber of(long value) {
+            JSONNumber number = new JSONNumber();
+            number.isLong = true;
+            number.longValue = value;
+            return number;
+        }
+
+        static JSONNumber of(double value) {
+            JSONNumber number = new JSONNumber();
+            number.doubleValue = value;
+            return number;
+        }
+
+        /**
+         * For numbers that fit neither a long nor a double, as kept by the scanner.
+         */
+        static JSONNumber of(BigDecimal value) {
+            JSONNumber number = new JSONNumber();
+            number.bigValue = value;
+            return number;
+        }
+
+        /**
+         * Reads the significant digits into a long mantissa and a decimal exponent in a single pass.
+         * Integers of up to 18 digits and decimals with a mantissa below 2^53 and an exponent within 22 are exact
+         * (Clinger's fast path), everything else falls back to the JDK parsers, which are correctly rounded as well.
+         * Can be called repeatedly, so parsers can reuse one instance as scratch space.
+         */
+        void scan(CharSequence json, int start, int end) {
+            isLong = false;
+            longValue = 0;
+            doubleValue = 0;
+            bigValue = null;
+
+            int i = start;
+            boolean negative = i < end && json.charAt(i) == '-';
+            if (negative) i++;
+
+            long mantissa = 0;
+            int significantDigits = 0;
+            int exponent = 0;
+            boolean truncated = false;
+
+            int integerStart = i;
+            for (; i < end && isDigit(json.charAt(i)); i++) {
+                if (significantDigits < MAX_LONG_DIGITS) {
+                    mantissa = mantissa * 10 + (json.charAt(i) - '0');
+                    if (mantissa != 0) significantDigits++;
+                } else {
+                    truncated = true;
+                    exponent++;
+                }
+            }
+            if (i == integerStart) throw new NumberFormatException("Not a number: " + json.subSequence(start, end));
+
+            boolean isInteger = true;
+            if (i < end && json.charAt(i) == '.') {
+                isInteger = false;
+                int fractionStart = ++i;
+                for (; i < end && isDigit(json.charAt(i)); i++) {
+                    if (significantDigits < MAX_LONG_DIGITS) {
+                        mantissa = mantissa * 10 + (json.charAt(i) - '0');
+                        if (mantissa != 0) significantDigits++;
+                        exponent--;
+                    } else {
+                        truncated = true;
+                    }
+                }
+                if (i == fractionStart) throw new NumberFormatException("Not a number: " + json.subSequence(start, end));
+            }
+            if (i < end && (json.charAt(i) == 'e' || json.charAt(i) == 'E')) {
+                isInteger = false;
+                i++;
+                boolean negativeExponent = i < end && json.charAt(i) == '-';
+                if (i < end && (json.charAt(i) == '-' || json.charAt(i) == '+')) i++;
+                int exponentStart = i;
+                int explicitExponent = 0;
+                for (; i < end && isDigit(json.charAt(i)); i++)
+                    if (explicitExponent < 100_000) explicitExponent = explicitExponent * 10 + (json.charAt(i) - '0');
+                if (i == exponentStart) throw new NumberFormatException("Not a number: " + json.subSequence(start, end));
+                exponent += negativeExponent ? -explicitExponent : explicitExponent;
+            }
+            if (i != end) throw new NumberFormatException("Not a number: " + json.subSequence(start, end));
+
+            if (isInteger) {
+                if (!truncated) {
+                    isLong = true;
+                    longValue = negative ? -mantissa : mantissa;
+                    return;
+                }
+                String text = json.subSequence(start, end).toString();
+                try {
+                    longValue = Long.parseLong(text);
+                    isLong = true;
+                } catch (NumberFormatException e) {
+                    bigValue = new BigDecimal(text);
+                }
+                return;
             }
+
+            double value;
+            if (!truncated && mantissa < MAX_EXACT_DOUBLE_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+                value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+                doubleValue = negative ? -value : value;
+                return;
+            }
+            String text = json.subSequence(start, end).toString();
+            doubleValue = Double.parseDouble(text);
+            if (Double.isInfinite(doubleValue)) bigValue = new BigDecimal(text);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
         }
 
         @Override
         public String toString() {
-            return getValue().toString();
+            if (isLong) return Long.toString(longValue);
+            if (bigValue != null) return bigValue.toString();
+            if (printsAsLong(doubleValue)) return Long.toString((long) doubleValue);
+            return Double.toString(doubleValue);
+        }
+
+        void writeTo(JsonOutput out) {
+            if (isLong) out.writeLong(longValue);
+            else if (bigValue != null) out.write(bigValue.toString());
+            else writeDouble(doubleValue, out);
+        }
+
+        /**
+         * Writes the value the way {@link #toString()} prints it, integral values without a fraction.
+         */
+        static void writeDouble(double value, JsonOutput out) {
+            if (printsAsLong(value)) out.writeLong((long) value);
+            else out.writeDouble(value);
+        }
+
+        private static boolean printsAsLong(double value) {
+            return value == Math.rint(value) && !Double.isInfinite(value) && fitsLong(value);
         }
 
+        /**
+         * Returns an Integer or a Long for integral values, depending on their size, and a Double otherwise.
+         */
         public Number getValue() {
-            if (isInteger()) return value.intValue();
-            return value.doubleValue();
+            if (isLong) return longValue == (int) longValue ? (Number) (int) longValue : (Number) longValue;
+            if (bigValue != null) return isInteger() ? bigValue.toBigInteger() : bigValue;
+            if (isInteger() && doubleValue == (int) doubleValue) return (int) doubleValue;
+            if (isInteger() && fitsLong(doubleValue)) return (long) doubleValue;
+            return doubleValue;
+        }
+
+        public long longValue() {
+            if (isLong) return longValue;
+            if (bigValue != null) return bigValue.longValue();
+            return (long) doubleValue;
+        }
+
+        public double doubleValue() {
+            if (isLong) return longValue;
+            if (bigValue != null) return bigValue.doubleValue();
+            return doubleValue;
+        }
+
+        public BigDecimal bigDecimalValue() {
+            if (isLong) return BigDecimal.valueOf(longValue);
+            if (bigValue != null) return bigValue;
+            return BigDecimal.valueOf(doubleValue);
         }
 
-        private boolean isInteger() {
-            return value.stripTrailingZeros().scale() <= 0;
+        boolean isInteger() {
+            if (isLong) return true;
+            if (bigValue != null) return bigValue.signum() == 0 || bigValue.stripTrailingZeros().scale() <= 0;
+            return doubleValue == Math.rint(doubleValue) && !Double.isInfinite(doubleValue);
+        }
+
+        private static boolean fitsLong(double value) {
+            return value >= Long.MIN_VALUE && value < 0x1p63;
         }
 
         @Override
         public <T> T convert(Class<T> clazz) {
-            List<?> intTypes = List.of(Integer.class, Short.class, Long.class, Byte.class);
-            if (!isInteger() && intTypes.contains(clazz)) throw new JsonNumberConversionException();
-            try {
-                if (clazz == Long.class) return (T) (Long) value.longValue();
-                if (clazz == Integer.class) return (T) (Integer) value.intValue();
-                if (clazz == Short.class) return (T) (Short) value.shortValueExact();
-                if (clazz == Byte.class) return (T) (Byte) value.byteValueExact();
-
-                if (clazz == Double.class) return (T) (Double) value.doubleValue();
-                if (clazz == Float.class) return (T) (Float) value.floatValue();
-                if (clazz == BigDecimal.class) return (T) value;
-                return (T) getValue();
-            } catch (ClassCastException ex) {
-                throw new RuntimeException(ex);
-            }
+            boolean isIntType = clazz == Long.class || clazz == Integer.class || clazz == Short.class || clazz == Byte.class
+                    || clazz == long.class || clazz == int.class || clazz == short.class || clazz == byte.class;
+            if (!isInteger() && isIntType) throw new JsonNumberConversionException();
+
+            if (clazz == Long.class || clazz == long.class) return (T) (Long) longValue();
+            if (clazz == Integer.class || clazz == int.class) return (T) (Integer) (int) longValue();
+            if (clazz == Short.class || clazz == short.class) return (T) (Short) (short) exact(Short.MIN_VALUE, Short.MAX_VALUE);
+            if (clazz == Byte.class || clazz == byte.class) return (T) (Byte) (byte) exact(Byte.MIN_VALUE, Byte.MAX_VALUE);
+
+            if (clazz == Double.class || clazz == double.class) return (T) (Double) doubleValue();
+            if (clazz == Float.class || clazz == float.class) return (T) (Float) (float) doubleValue();
+            if (clazz == BigDecimal.class) return (T) bigDecimalValue();
+            if (clazz == BigInteger.class) return (T) bigDecimalValue().toBigIntegerExact();
+            return (T) getValue();
+        }
+
+        private long exact(long min, long max) {
+            long value = longValue();
+            if (bigValue != null || value < min || value > max) throw new ArithmeticException("Overflow");
+            return value;
         }
 
         static class JsonNumberConversionException extends RuntimeException {
@@ -172,107 +643,446 @@ public sealed abstract class JSON {
         public <T> T convert(Class<T> clazz) {
             return null;
         }
+
+        @Override
+        public <T> T convertCollection(Class<?> collectionType, Class<?> itemClass) {
+            return null;
+        }
+    }
+
+    static final class JSONBoolean extends JSON {
+        boolean value;
+
+        public JSONBoolean(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+
+        public <T> T convert(Class<T> clazz) {
+            return (T) Boolean.valueOf(value);
+        }
     }
 
     static final class JSONArray extends JSON {
-        List<JSON> items = new ArrayList<>();
+        private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+        List<JSON> items;
+        long[] longs;
+        double[] doubles;
+        private JsonTape tape;
+        private int tapeEntry;
+        /**
+         * The tape entries of the items, found on the first indexed access, so a loop over the indexes is linear.
+         */
+        private int[] children;
 
         public JSONArray(String json) {
-            String inside = json.substring(1, json.length() - 1);
-            List<Integer> commaIndexes = findCommaIndexes(inside);
-            splitByIndexes(inside, commaIndexes)
-                    .map(JSON::parse)
-                    .forEach(items::add);
+            JSONArray parsed = new JsonParser().parseArray(json);
+            this.items = parsed.items;
+            this.longs = parsed.longs;
+            this.doubles = parsed.doubles;
+        }
+
+        JSONArray(List<JSON> items) {
+            this.items = items;
+        }
+
+        /**
+         * Packed array of integers, items is then a read-only view creating the number nodes on access.
+         */
+        JSONArray(long[] longs) {
+            this.longs = longs;
+            this.items = new PackedItems(longs, null);
+        }
+
+        JSONArray(double[] doubles) {
+            this.doubles = doubles;
+            this.items = new PackedItems(null, doubles);
+        }
+
+        JSONArray(JsonTape tape, int tapeEntry) {
+            this.tape = tape;
+            this.tapeEntry = tapeEntry;
+        }
+
+        @Override
+        public JSON get(int index) {
+            if (index < 0) return null;
+            if (items != null) return index < items.size() ? items.get(index) : null;
+            int[] children = children();
+            return index < children.length ? tape.node(children[index]) : null;
+        }
+
+        public int size() {
+            return items != null ? items.size() : children().length;
+        }
+
+        private int[] children() {
+            if (children == null) children = tape.children(tapeEntry);
+            return children;
+        }
+
+        List<JSON> items() {
+            if (items == null) {
+                items = new ArrayList<>();
+                for (int child = tape.firstChild(tapeEntry); child < tape.next(tapeEntry); child = tape.next(child))
+                    items.add(tape.node(child));
+                tape = null;
+                children = null;
+            }
+            return items;
         }
 
         @Override
         public String toString() {
-            return items.stream().map(JSON::toString).collect(Collectors.joining(", ", "[", "]"));
+            StringBuilder text = new StringBuilder();
+            TreeWriter.write(this, text, TreeWriter.Style.SPACED);
+            return text.toString();
         }
 
-        public <T, I> T convertCollection(Class<?> clazz, Type itemType) {
-            if (List.class.isAssignableFrom(clazz)) {
-                return (T) items.stream().map(j -> j.convert(findItemJavaType(itemType))).toList();
+        /**
+         * Like {@link #convertCollection(Class, Class)}, with the generic type of the collection, like {@code List<Integer>}.
+         */
+        public <T> T convertCollection(Class<?> clazz, Type collectionType) {
+            return convertCollection(clazz, TypeBinding.of(collectionType).item());
+        }
+
+        @Override
+        public <T> T convertCollection(Class<?> clazz, Class<?> itemClass) {
+            return convertCollection(clazz, TypeBinding.of(itemClass));
+        }
+
+        private <T> T convertCollection(Class<?> clazz, TypeBinding item) {
+            List<Object> packed = longs != null || doubles != null ? convertPacked(item.rawType) : null;
+            if (isList(clazz)) {
+                if (packed != null) return (T) Collections.unmodifiableList(packed);
+                return (T) items().stream().map(j -> j.convertValue(item)).toList();
             }
-            if (Set.class.isAssignableFrom(clazz)) {
-                return (T) items.stream().map(j -> j.convert(findItemJavaType(itemType))).collect(toSet());
+            if (isSet(clazz)) {
+                if (packed != null) return (T) new HashSet<>(packed);
+                return (T) items().stream().map(j -> j.convertValue(item)).collect(toSet());
             }
             throw new JsonConversionException(this.toString(), clazz, null);
         }
 
-        private Class<?> findItemJavaType(Type itemType) {
-            String className = itemType.toString().split("\\<|\\>")[1];
-            try {
-                return Class.forName(className);
-            } catch (ClassNotFoundException e) {
-                throw new JsonConversionException(this.toString(), null, e);
+        /**
+         * List types, and the types a list can be assigned to, like {@code Collection} or {@code Object}.
+         */
+        private static boolean isList(Class<?> clazz) {
+            return List.class.isAssignableFrom(clazz) || clazz.isAssignableFrom(ArrayList.class);
+        }
+
+        private static boolean isSet(Class<?> clazz) {
+            return Set.class.isAssignableFrom(clazz);
+        }
+
+        /**
+         * Boxes the packed numbers straight into the wrapper type, without creating number nodes,
+         * or returns null if the item type has no fast path.
+         */
+        private List<Object> convertPacked(Class<?> itemType) {
+            int size = items.size();
+            List<Object> list = new ArrayList<>(size);
+            if (itemType == Long.class) for (int i = 0; i < size; i++) list.add(integralAt(i));
+            else if (itemType == Integer.class) for (int i = 0; i < size; i++) list.add((int) integralAt(i));
+            else if (itemType == Double.class) for (int i = 0; i < size; i++) list.add(doubleAt(i));
+            else if (itemType == Float.class) for (int i = 0; i < size; i++) list.add((float) doubleAt(i));
+            else return null;
+            return list;
+        }
+
+        private Object convertPackedArray(Class<?> componentType) {
+            int size = items.size();
+            if (componentType == long.class) {
+                if (longs != null) return longs.clone();
+                long[] result = new long[size];
+                for (int i = 0; i < size; i++) result[i] = integralAt(i);
+                return result;
             }
+            if (componentType == int.class) {
+                int[] result = new int[size];
+                for (int i = 0; i < size; i++) result[i] = (int) integralAt(i);
+                return result;
+            }
+            if (componentType == double.class) {
+                if (doubles != null) return doubles.clone();
+                double[] result = new double[size];
+                for (int i = 0; i < size; i++) result[i] = longs[i];
+                return result;
+            }
+            if (componentType == float.class) {
+                float[] result = new float[size];
+                for (int i = 0; i < size; i++) result[i] = (float) doubleAt(i);
+                return result;
+            }
+            return null;
+        }
+
+        private long integralAt(int i) {
+            if (longs != null) return longs[i];
+            double value = doubles[i];
+            if (value != Math.rint(value)) throw new JSONNumber.JsonNumberConversionException();
+            return (long) value;
+        }
+
+        private double doubleAt(int i) {
+            return longs != null ? longs[i] : doubles[i];
         }
 
         @Override
         public <T> T convert(Class<T> clazz) {
+            Instrumentation.ConvertEvent event = new Instrumentation.ConvertEvent();
+            event.begin();
+            long start = Instrumentation.start();
+            T value = convertValue(clazz);
+            Instrumentation.converted(event, this, clazz, start);
+            return value;
+        }
+
+        @Override
+        <T> T convertValue(Class<T> clazz) {
             if (clazz.isArray()) {
+                Object packed = longs != null || doubles != null ? convertPackedArray(clazz.getComponentType()) : null;
+                if (packed != null) return (T) packed;
+                List<JSON> items = items();
                 Object arr = Array.newInstance(clazz.getComponentType(), items.size());
                 for (int i = 0; i < items.size(); i++) {
                     JSON json = items.get(i);
-                    Object convertedItem = json.convert(clazz.componentType());
+                    Object convertedItem = json.convertValue(clazz.componentType());
                     Array.set(arr, i, convertedItem);
                 }
                 return (T) arr;
             }
 
             if (List.class.isAssignableFrom(clazz)) {
-                boolean isObject = (this.items.get(0) instanceof JSONObject);
+                boolean isObject = (items().get(0) instanceof JSONObject);
                 if (isObject)
-                    return (T) this.items.stream()
+                    return (T) items().stream()
                             .map(o -> (JSONObject) o)
-                            .map(it -> it.convert(clazz.getComponentType()))
+                            .map(it -> it.convertValue(clazz.getComponentType()))
                             .toList();
-                return (T) this.items.stream()
-                        .map(it -> it.convert(clazz.getComponentType()))
+                return (T) items().stream()
+                        .map(it -> it.convertValue(clazz.getComponentType()))
                         .toList();
             }
             if (Set.class.isAssignableFrom(clazz)) {
-                boolean isObject = (this.items.get(0) instanceof JSONObject);
+                boolean isObject = (items().get(0) instanceof JSONObject);
                 if (isObject)
-                    return (T) this.items.stream()
+                    return (T) items().stream()
                             .map(o -> (JSONObject) o)
-                            .map(it -> it.convert(clazz.getComponentType()))
+                            .map(it -> it.convertValue(clazz.getComponentType()))
                             .collect(toSet());
-                return (T) this.items.stream()
-                        .map(it -> it.convert(clazz.getComponentType()))
+                return (T) items().stream()
+                        .map(it -> it.convertValue(clazz.getComponentType()))
                         .collect(toSet());
             }
             return null;
         }
+
+        @Override
+        Object convertValue(TypeBinding binding) {
+            Class<?> clazz = binding.rawType;
+            if (clazz.isArray() && !clazz.getComponentType().isPrimitive()) {
+                List<JSON> items = items();
+                TypeBinding component = binding.item();
+                Object array = Array.newInstance(clazz.getComponentType(), items.size());
+                for (int i = 0; i < items.size(); i++) Array.set(array, i, items.get(i).convertValue(component));
+                return array;
+            }
+            if (isList(clazz) || isSet(clazz)) return convertCollection(clazz, binding.item());
+            return convertValue(clazz);
+        }
+
+        private static final class PackedItems extends AbstractList<JSON> implements RandomAccess {
+            private final long[] longs;
+            private final double[] doubles;
+
+            PackedItems(long[] longs, double[] doubles) {
+                this.longs = longs;
+                this.doubles = doubles;
+            }
+
+            @Override
+            public JSON get(int index) {
+                return longs != null ? JSONNumber.of(longs[index]) : JSONNumber.of(doubles[index]);
+            }
+
+            @Override
+            public int size() {
+                return longs != null ? longs.length : doubles.length;
+            }
+        }
+
+        /**
+         * Collects the numbers of an array while they can be packed into a long[], or a double[] if there is
+         * a fraction among them. When a value does not fit, the parser takes the items collected so far as nodes
+         * and continues with a regular list.
+         */
+        static final class Builder {
+            private static final int INITIAL_CAPACITY = 8;
+            private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+            private long[] longs = new long[INITIAL_CAPACITY];
+            private double[] doubles;
+            private boolean floating;
+            private int size;
+
+            /**
+             * Returns false, leaving the builder unchanged, if the number cannot be packed without losing precision.
+             */
+            boolean add(JSONNumber number) {
+                if (number.bigValue != null) return false;
+                if (number.isLong && !floating) {
+                    if (size == longs.length) longs = Arrays.copyOf(longs, size * 2);
+                    longs[size++] = number.longValue;
+                    return true;
+                }
+                if (number.isLong && !isExactDouble(number.longValue)) return false;
+                if (!floating) {
+                    for (int i = 0; i < size; i++) if (!isExactDouble(longs[i])) return false;
+                    if (doubles == null || doubles.length < longs.length) doubles = new double[longs.length];
+                    for (int i = 0; i < size; i++) doubles[i] = longs[i];
+                    floating = true;
+                }
+                if (size == doubles.length) doubles = Arrays.copyOf(doubles, size * 2);
+                doubles[size++] = number.isLong ? number.longValue : number.doubleValue;
+                return true;
+            }
+
+            List<JSON> toItems() {
+                List<JSON> items = new ArrayList<>(Math.max(size * 2, 8));
+                for (int i = 0; i < size; i++) items.add(floating ? JSONNumber.of(doubles[i]) : JSONNumber.of(longs[i]));
+                return items;
+            }
+
+            JSONArray build() {
+                if (size == 0) return new JSONArray(new ArrayList<>());
+                if (floating) return new JSONArray(Arrays.copyOf(doubles, size));
+                return new JSONArray(Arrays.copyOf(longs, size));
+            }
+
+            /**
+             * Empties the builder for the next array, keeping its buffers unless they grew too large to hold on to.
+             */
+            void clear() {
+                size = 0;
+                floating = false;
+                if (longs.length > MAX_RETAINED_CAPACITY) longs = new long[INITIAL_CAPACITY];
+                if (doubles != null && doubles.length > MAX_RETAINED_CAPACITY) doubles = null;
+            }
+
+            private static boolean isExactDouble(long value) {
+                return value >= -MAX_EXACT_DOUBLE && value <= MAX_EXACT_DOUBLE;
+            }
+        }
+
+        /**
+         * One builder for each nesting level, reused by a parser from one array and from one document to the next.
+         */
+        static final class Builders {
+            private static final int MAX_RETAINED_DEPTH = 64;
+
+            private Builder[] builders = new Builder[8];
+            private int depth;
+
+            Builder acquire() {
+                if (depth == builders.length) builders = Arrays.copyOf(builders, depth * 2);
+                Builder builder = builders[depth];
+                if (builder == null) builders[depth] = builder = new Builder();
+                builder.clear();
+                depth++;
+                return builder;
+            }
+
+            void release() {
+                depth--;
+            }
+
+            void reset() {
+                depth = 0;
+                if (builders.length > MAX_RETAINED_DEPTH) builders = new Builder[MAX_RETAINED_DEPTH];
+                for (Builder builder : builders) if (builder != null) builder.clear();
+            }
+        }
     }
 
     static final class JSONObject extends JSON {
-        Map<JSONString, JSON> map = new HashMap<>();
-        List<JSONString> keysInOrder = new ArrayList<>();
+        Map<JSONString, JSON> map;
+        List<JSONString> keysInOrder;
+        private JsonTape tape;
+        private int tapeEntry;
 
         public JSONObject(String json) {
-            json = json.replace("\n", "");
-            String inside = json.substring(1, json.length() - 1);
-            List<Integer> commaIndexes = findCommaIndexes(inside);
-            splitByIndexes(inside, commaIndexes)
-//                    .peek(insideJson -> System.out.println(insideJson))
-                    .map(s -> s.split(":", 2))
-                    .forEach(e -> {
-                        JSONString key = new JSONString(e[0].trim());
-                        map.put(key, JSON.parse(e[1]));
-                        keysInOrder.add(key);
-                    });
+            JSONObject parsed = new JsonParser().parseObject(json);
+            this.map = parsed.map;
+            this.keysInOrder = parsed.keysInOrder;
+        }
+
+        JSONObject() {
+            map = new HashMap<>();
+            keysInOrder = new ArrayList<>();
+        }
+
+        /**
+         * For a known number of properties, sized so the map never rehashes.
+         */
+        JSONObject(int size) {
+            map = new HashMap<>((int) (size / 0.75f) + 1);
+            keysInOrder = new ArrayList<>(size);
+        }
+
+        JSONObject(JsonTape tape, int tapeEntry) {
+            this.tape = tape;
+            this.tapeEntry = tapeEntry;
+        }
+
+        void put(JSONString key, JSON value) {
+            if (map.put(key, value) == null) keysInOrder.add(key);
+        }
+
+        @Override
+        public JSON get(String name) {
+            if (map != null) return map.get(JSONString.of(name));
+            int entry = tape.find(tapeEntry, name);
+            return entry < 0 ? null : tape.node(entry);
+        }
+
+        public int size() {
+            return map != null ? map.size() : tape.propertyCount(tapeEntry);
+        }
+
+        void materialize() {
+            if (map != null) return;
+            map = new HashMap<>();
+            keysInOrder = new ArrayList<>();
+            for (int key = tape.firstChild(tapeEntry); key < tape.next(tapeEntry); key = tape.next(key + 1))
+                put(tape.key(key), tape.node(key + 1));
+            tape = null;
         }
 
         @Override
         public String toString() {
-            return keysInOrder.stream()
-                    .map(k -> k.toString() + ": " + map.get(k).toString()).collect(Collectors.joining(", ", "{", "}"));
+            StringBuilder text = new StringBuilder();
+            TreeWriter.write(this, text, TreeWriter.Style.SPACED);
+            return text.toString();
         }
 
         @Override
         public <T> T convert(Class<T> clazz) {
+            Instrumentation.ConvertEvent event = new Instrumentation.ConvertEvent();
+            event.begin();
+            long start = Instrumentation.start();
+            T value = convertValue(clazz);
+            Instrumentation.converted(event, this, clazz, start);
+            return value;
+        }
+
+        @Override
+        <T> T convertValue(Class<T> clazz) {
             try {
                 return tryToConvert(clazz);
             } catch (ReflectiveOperationException e) {
@@ -281,54 +1091,87 @@ public sealed abstract class JSON {
         }
 
         private <T> T tryToConvert(Class<T> clazz) throws ReflectiveOperationException {
-            Constructor<T> constructor = clazz.getConstructor();
-            T object = constructor.newInstance();
-
-            SetterNameFinder finder = new SetterNameFinder(clazz);
-            map.entrySet().stream()
-                    .forEach(e -> {
-                        String jsonPropertyName = e.getKey().value;
-                        String javaFieldName = finder.getFieldName(jsonPropertyName);
-                        var setterName = "set" + javaFieldName;
-                        Arrays.stream(clazz.getMethods())
-                                .filter(m -> m.getName().equalsIgnoreCase(setterName))
-                                .filter(m -> m.getParameterCount() == 1)
-                                .findFirst()
-                                .ifPresent(method -> {
-                                    try {
-                                        method.invoke(object, findSetterParameterValue(e.getValue(), method));
-                                    } catch (ReflectiveOperationException ex) {
-                                        throw new JsonConversionException(this.toString(), clazz, ex);
-                                    }
-                                });
-                    });
+            JsonBinder<T> binder = JsonBinders.of(clazz);
+            if (binder != null) return convertWith(binder);
+            ClassBinding binding = ClassBinding.of(clazz);
+            T object = (T) binding.newInstance();
+
+            materialize();
+            for (Map.Entry<JSONString, JSON> e : map.entrySet()) {
+                ClassBinding.Property property = binding.property(e.getKey().value);
+                if (property != null) property.set(object, findSetterParameterValue(e.getValue(), property));
+            }
             return object;
         }
 
-        private Object findSetterParameterValue(JSON e, Method method) {
-            var parameterType = method.getParameterTypes()[0];
-            Object o;
-            if (isCollection(parameterType))
-                o = ((JSONArray) e).convertCollection(parameterType, method.getGenericParameterTypes()[0]);
-            else
-                o = e.convert(parameterType);
-            return o;
+        private <T> T convertWith(JsonBinder<T> binder) {
+            T object = binder.newInstance();
+            materialize();
+            try {
+                for (Map.Entry<JSONString, JSON> e : map.entrySet()) binder.set(object, e.getKey().value, e.getValue());
+            } catch (JsonConversionException | JSONNumber.JsonNumberConversionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new JsonConversionException(this.toString(), binder.type(), e);
+            }
+            return object;
         }
 
-        private boolean isCollection(Class<?> clazz) {
-            return List.class.isAssignableFrom(clazz) || Set.class.isAssignableFrom(clazz);
+        private Object findSetterParameterValue(JSON e, ClassBinding.Property property) {
+            return e.convertValue(property.binding);
+        }
+
+        @Override
+        Object convertValue(TypeBinding binding) {
+            if (!binding.rawType.isAssignableFrom(LinkedHashMap.class)) return convertValue(binding.rawType);
+            materialize();
+            TypeBinding value = binding.value();
+            Map<String, Object> result = new LinkedHashMap<>((int) (keysInOrder.size() / 0.75f) + 1);
+            for (JSONString key : keysInOrder) result.put(key.value, map.get(key).convertValue(value));
+            return result;
         }
     }
 
-    private static class JsonParseException extends RuntimeException {
+    public static class JsonParseException extends RuntimeException {
         public JsonParseException(String message) {
             super(message);
         }
     }
 
-    private static class JsonConversionException extends RuntimeException {
+    static class JsonConversionException extends RuntimeException {
         public JsonConversionException(String json, Class<?> clazz, Throwable cause) {
             super("Could not convert to " + clazz + " the following JSON object: " + json, cause);
         }
+
+        public JsonConversionException(Type type, Throwable cause) {
+            super("Could not convert to " + type, cause);
+        }
+    }
+
+    /**
+     * A line of a newline delimited JSON file that could not be parsed, line numbers start from 1.
+     */
+    public static class JsonLineException extends RuntimeException {
+        private final long lineNumber;
+
+        public JsonLineException(long lineNumber, String message) {
+            super("Line " + lineNumber + ": " + message);
+            this.lineNumber = lineNumber;
+        }
+
+        public JsonLineException(long lineNumber, RuntimeException cause) {
+            super("Line " + lineNumber + ": " + cause.getMessage(), cause);
+            this.lineNumber = lineNumber;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+    }
+
+    static class JsonWriteException extends RuntimeException {
+        public JsonWriteException(Class<?> clazz, Throwable cause) {
+            super("Could not write " + clazz + " as JSON", cause);
+        }
     }
 }
\ No newline at end of file
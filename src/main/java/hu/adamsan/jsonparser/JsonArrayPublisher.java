@@ -0,0 +1,191 @@
+package hu.adamsan.jsonparser;
+
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the items of a JSON array as they are read, each one bound to the given class with the same rules as
+ * {@link JSON#convert(Class)}. Items are read from the input only when the subscriber has requested them,
+ * so a slow subscriber keeps at most one item and the reader's buffer in memory.
+ * The array is the whole document, or the one selected by a {@link JsonPath} without wildcards;
+ * if the path selects nothing, the publisher completes without items. The rest of the document after the array
+ * is not read. Null items are skipped, since a publisher cannot emit null.
+ * <p>
+ * The input can be read once, so only one subscriber is accepted. Reading and the calls to the subscriber happen
+ * on the given executor, by default the common {@link ForkJoinPool}, one task at a time.
+ * The input is closed when the array ends, on an error and on cancellation.
+ */
+public final class JsonArrayPublisher<T> implements Flow.Publisher<T> {
+    private final JsonReader reader;
+    private final JsonPath path;
+    private final Class<T> type;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public JsonArrayPublisher(InputStream in, Class<T> type) {
+        this(new JsonReader(in), JsonPath.compile("$"), type, ForkJoinPool.commonPool());
+    }
+
+    public JsonArrayPublisher(InputStream in, JsonPath path, Class<T> type) {
+        this(new JsonReader(in), path, type, ForkJoinPool.commonPool());
+    }
+
+    public JsonArrayPublisher(InputStream in, JsonPath path, Class<T> type, Executor executor) {
+        this(new JsonReader(in), path, type, executor);
+    }
+
+    private JsonArrayPublisher(JsonReader reader, JsonPath path, Class<T> type, Executor executor) {
+        if (!path.isDefinite()) throw new IllegalArgumentException("Wildcards are not supported: " + path);
+        this.reader = reader;
+        this.path = path;
+        this.type = type;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+        ItemSubscription subscription = new ItemSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Delivers the items on the executor. Requests and cancellation only record their intent and schedule a drain,
+     * the work counter lets a single drain run at a time and makes it loop again if something arrived meanwhile.
+     */
+    private final class ItemSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean started;
+        private boolean done;
+
+        ItemSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) invalidRequest = new IllegalArgumentException("Requested " + n + " items, expected a positive number");
+            else demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) executor.execute(this::drain);
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!done) deliver();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            try {
+                while (!cancelled && invalidRequest == null && demand.get() > 0) {
+                    if (!started) {
+                        started = true;
+                        if (!findArray()) {
+                            complete();
+                            return;
+                        }
+                    }
+                    if (!reader.hasNext()) {
+                        complete();
+                        return;
+                    }
+                    T item = StreamingBinder.bindValue(reader, TypeBinding.of(type));
+                    if (item == null) continue;
+                    if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+                    subscriber.onNext(item);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            if (invalidRequest != null) {
+                fail(invalidRequest);
+            } else if (cancelled) {
+                done = true;
+                closeQuietly();
+            }
+        }
+
+        /**
+         * Walks the path down to the array and enters it, or returns false if the path selects nothing.
+         */
+        private boolean findArray() {
+            for (JsonPath.Step step : path.steps()) {
+                if (step.name != null) {
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) return false;
+                    reader.beginObject();
+                    while (true) {
+                        if (!reader.hasNext()) return false;
+                        if (reader.nextName().equals(step.name)) break;
+                        reader.skipValue();
+                    }
+                } else {
+                    if (reader.peek() != JsonToken.BEGIN_ARRAY) return false;
+                    reader.beginArray();
+                    for (int i = 0; i < step.index; i++) {
+                        if (!reader.hasNext()) return false;
+                        reader.skipValue();
+                    }
+                    if (!reader.hasNext()) return false;
+                }
+            }
+            reader.beginArray();
+            return true;
+        }
+
+        private void complete() {
+            done = true;
+            closeQuietly();
+            subscriber.onComplete();
+        }
+
+        private void fail(Throwable e) {
+            done = true;
+            closeQuietly();
+            subscriber.onError(e);
+        }
+
+        private void closeQuietly() {
+            try {
+                reader.close();
+            } catch (RuntimeException ignored) {
+                // the items are delivered already, a failing close changes nothing for the subscriber
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Binary form of a JSON tree: a magic header, then every value as a one byte tag followed by its content.
+ * Counts and lengths are unsigned varints, integers are zigzag varints and doubles are 8 bytes big-endian.
+ * Packed numeric arrays stay packed, and every distinct key is written once: its first occurrence carries its text,
+ * the later ones only its index, so the keys of a decoded tree are shared just like in a parsed one.
+ * Decoding needs no tokenizing and no number scanning, only the strings are decoded from UTF-8.
+ */
+final class JsonBinary {
+    private static final byte[] MAGIC = {'J', 'S', 'N', 'B', 1};
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte BIG_NUMBER = 5;
+    private static final byte STRING = 6;
+    private static final byte ARRAY = 7;
+    private static final byte LONG_ARRAY = 8;
+    private static final byte DOUBLE_ARRAY = 9;
+    private static final byte OBJECT = 10;
+
+    private JsonBinary() {
+    }
+
+    static void write(JSON value, OutputStream out) {
+        Encoder encoder = new Encoder(out);
+        encoder.writeBytes(MAGIC);
+        encoder.writeValue(value);
+        encoder.flush();
+    }
+
+    static JSON read(ByteBuffer binary) {
+        return new Decoder(binary).read();
+    }
+
+    private static final class Encoder {
+        private static final int BUFFER_SIZE = 8192;
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int count;
+        private final Map<JSONString, Integer> keys = new HashMap<>();
+
+        Encoder(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeValue(JSON value) {
+            if (value instanceof JSONNull) {
+                writeByte(NULL);
+            } else if (value instanceof JSONBoolean bool) {
+                writeByte(bool.value ? TRUE : FALSE);
+            } else if (value instanceof JSONNumber number) {
+                writeNumber(number);
+            } else if (value instanceof JSONString string) {
+                writeByte(STRING);
+                writeString(string.value);
+            } else if (value instanceof JSONArray array) {
+                writeArray(array);
+            } else if (value instanceof JSONObject object) {
+                writeObject(object);
+            }
+        }
+
+        private void writeNumber(JSONNumber number) {
+            if (number.isLong) {
+                writeByte(LONG);
+                writeVarint(zigzag(number.longValue));
+            } else if (number.bigValue != null) {
+                writeByte(BIG_NUMBER);
+                writeString(number.bigValue.toString());
+            } else {
+                writeByte(DOUBLE);
+                writeDouble(number.doubleValue);
+            }
+        }
+
+        private void writeArray(JSONArray array) {
+            if (array.longs != null) {
+                writeByte(LONG_ARRAY);
+                writeVarint(array.longs.length);
+                for (long value : array.longs) writeVarint(zigzag(value));
+            } else if (array.doubles != null) {
+                writeByte(DOUBLE_ARRAY);
+                writeVarint(array.doubles.length);
+                for (double value : array.doubles) writeDouble(value);
+            } else {
+                List<JSON> items = array.items();
+                writeByte(ARRAY);
+                writeVarint(items.size());
+                for (JSON item : items) writeValue(item);
+            }
+        }
+
+        private void writeObject(JSONObject object) {
+            object.materialize();
+            writeByte(OBJECT);
+            writeVarint(object.keysInOrder.size());
+            for (JSONString key : object.keysInOrder) {
+                writeKey(key);
+                writeValue(object.map.get(key));
+            }
+        }
+
+        /**
+         * The lowest bit tells a new key, followed by its length and text, from the index of a key seen before.
+         */
+        private void writeKey(JSONString key) {
+            Integer index = keys.get(key);
+            if (index != null) {
+                writeVarint((long) index << 1);
+                return;
+            }
+            keys.put(key, keys.size());
+            byte[] bytes = key.value.getBytes(UTF_8);
+            writeVarint((long) bytes.length << 1 | 1);
+            writeBytes(bytes);
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private void writeVarint(long value) {
+            if (buffer.length - count < 10) flushBuffer();
+            while ((value & ~0x7FL) != 0) {
+                buffer[count++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            buffer[count++] = (byte) value;
+        }
+
+        private void writeDouble(double value) {
+            if (buffer.length - count < 8) flushBuffer();
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) buffer[count++] = (byte) (bits >>> shift);
+        }
+
+        private void writeByte(byte value) {
+            if (count == buffer.length) flushBuffer();
+            buffer[count++] = value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            if (bytes.length > buffer.length - count) flushBuffer();
+            if (bytes.length > buffer.length) {
+                write(bytes, bytes.length);
+                return;
+            }
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        void flush() {
+            flushBuffer();
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flushBuffer() {
+            write(buffer, count);
+            count = 0;
+        }
+
+        private void write(byte[] bytes, int length) {
+            try {
+                out.write(bytes, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static long zigzag(long value) {
+            return value << 1 ^ value >> 63;
+        }
+    }
+
+    /**
+     * Reads with relative gets from a big-endian duplicate of the buffer, so the position and the byte order
+     * of the caller's buffer are left alone. Every count is checked against the remaining bytes before allocating,
+     * so corrupt input fails with a {@link JsonParseException} instead of a huge allocation.
+     */
+    private static final class Decoder {
+        private final ByteBuffer in;
+        private final int start;
+        private final List<JSONString> keys = new ArrayList<>();
+        private byte[] scratch = new byte[64];
+
+        Decoder(ByteBuffer binary) {
+            this.in = binary.duplicate().order(ByteOrder.BIG_ENDIAN);
+            this.start = binary.position();
+        }
+
+        JSON read() {
+            try {
+                for (byte b : MAGIC) if (in.get() != b) throw error("Not a binary JSON document");
+                JSON value = readValue();
+                if (in.hasRemaining()) throw error("Unexpected content after the end of the binary JSON value");
+                return value;
+            } catch (BufferUnderflowException e) {
+                throw error("Unexpected end of binary JSON");
+            }
+        }
+
+        private JSON readValue() {
+            byte tag = in.get();
+            return switch (tag) {
+                case NULL -> new JSONNull();
+                case FALSE -> new JSONBoolean(false);
+                case TRUE -> new JSONBoolean(true);
+                case LONG -> JSONNumber.of(unzigzag(readVarint()));
+                case DOUBLE -> JSONNumber.of(in.getDouble());
+                case BIG_NUMBER -> readBigNumber();
+                case STRING -> JSONString.of(readString(readCount(1)));
+                case ARRAY -> readArray();
+                case LONG_ARRAY -> readLongArray();
+                case DOUBLE_ARRAY -> readDoubleArray();
+                case OBJECT -> readObject();
+                default -> throw error("Unknown tag " + tag);
+            };
+        }
+
+        private JSONNumber readBigNumber() {
+            String text = readString(readCount(1));
+            try {
+                return JSONNumber.of(new BigDecimal(text));
+            } catch (NumberFormatException e) {
+                throw error("Not a number: " + text);
+            }
+        }
+
+        private JSONArray readArray() {
+            int size = readCount(1);
+            List<JSON> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) items.add(readValue());
+            return new JSONArray(items);
+        }
+
+        private JSONArray readLongArray() {
+            long[] values = new long[readCount(1)];
+            for (int i = 0; i < values.length; i++) values[i] = unzigzag(readVarint());
+            return new JSONArray(values);
+        }
+
+        private JSONArray readDoubleArray() {
+            double[] values = new double[readCount(Double.BYTES)];
+            in.asDoubleBuffer().get(values);
+            in.position(in.position() + values.length * Double.BYTES);
+            return new JSONArray(values);
+        }
+
+        private JSONObject readObject() {
+            int size = readCount(2);
+            JSONObject object = new JSONObject(size);
+            for (int i = 0; i < size; i++) {
+                JSONString key = readKey();
+                object.put(key, readValue());
+            }
+            return object;
+        }
+
+        private JSONString readKey() {
+            long reference = readVarint();
+            if ((reference & 1) == 0) {
+                if (reference >>> 1 >= keys.size()) throw error("Unknown key reference " + (reference >>> 1));
+                return keys.get((int) (reference >>> 1));
+            }
+            if (reference >>> 1 > in.remaining()) throw error("Unexpected end of binary JSON");
+            JSONString key = SymbolTable.KEYS.get(readString((int) (reference >>> 1)));
+            keys.add(key);
+            return key;
+        }
+
+        private String readString(int length) {
+            if (in.hasArray()) {
+                String value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+                in.position(in.position() + length);
+                return value;
+            }
+            if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, UTF_8);
+        }
+
+        /**
+         * Reads a count of items taking at least the given number of bytes each.
+         */
+        private int readCount(int minItemSize) {
+            long count = readVarint();
+            if (count > in.remaining() / minItemSize) throw error("Unexpected end of binary JSON");
+            return (int) count;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw error("Malformed varint");
+        }
+
+        private static long unzigzag(long value) {
+            return value >>> 1 ^ -(value & 1);
+        }
+
+        private JsonParseException error(String message) {
+            return new JsonParseException(message + " at byte offset " + (in.position() - start));
+        }
+    }
+}
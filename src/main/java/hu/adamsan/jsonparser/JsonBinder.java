@@ -0,0 +1,17 @@
+package hu.adamsan.jsonparser;
+
+/**
+ * Converts JSON objects to instances of a model class without reflection.
+ * Binders are generated for classes annotated with {@link JsonModel}, registered as services,
+ * and {@link JSON#convert(Class)} uses them instead of reflection when one is found for the class.
+ */
+public interface JsonBinder<T> {
+    Class<T> type();
+
+    T newInstance();
+
+    /**
+     * Converts the value and sets it on the property bound to the JSON property name, returns false if there is none.
+     */
+    boolean set(T target, String jsonPropertyName, JSON value);
+}
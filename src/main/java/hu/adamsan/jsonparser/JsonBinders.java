@@ -0,0 +1,51 @@
+package hu.adamsan.jsonparser;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * The {@link JsonBinder}s found with {@link ServiceLoader}. The binders visible to the library are loaded once,
+ * on the first conversion of an object. A class without one is looked up once more, in its own class loader and in
+ * the context class loader of the thread first converting it, so binders of applications in child class loaders,
+ * like web applications or plugins, are found as well.
+ */
+final class JsonBinders {
+    private static final Map<Class<?>, JsonBinder<?>> BINDERS = load();
+    private static final ClassValue<Optional<JsonBinder<?>>> CHILD_BINDERS = new ClassValue<>() {
+        @Override
+        protected Optional<JsonBinder<?>> computeValue(Class<?> type) {
+            JsonBinder<?> binder = find(type, type.getClassLoader());
+            if (binder == null) binder = find(type, Thread.currentThread().getContextClassLoader());
+            return Optional.ofNullable(binder);
+        }
+    };
+
+    private JsonBinders() {
+    }
+
+    /**
+     * Returns the binder of the class, or null if there is none and reflection has to be used.
+     */
+    static <T> JsonBinder<T> of(Class<T> clazz) {
+        JsonBinder<?> binder = BINDERS.get(clazz);
+        if (binder == null) binder = CHILD_BINDERS.get(clazz).orElse(null);
+        return (JsonBinder<T>) binder;
+    }
+
+    private static Map<Class<?>, JsonBinder<?>> load() {
+        Map<Class<?>, JsonBinder<?>> binders = new HashMap<>();
+        for (JsonBinder<?> binder : ServiceLoader.load(JsonBinder.class, JsonBinder.class.getClassLoader()))
+            binders.put(binder.type(), binder);
+        return Map.copyOf(binders);
+    }
+
+    private static JsonBinder<?> find(Class<?> type, ClassLoader loader) {
+        if (loader == null || loader == JsonBinder.class.getClassLoader()) return null;
+        for (JsonBinder<?> binder : ServiceLoader.load(JsonBinder.class, loader)) {
+            if (binder.type() == type) return binder;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,496 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Push parser for UTF-8 encoded input arriving in chunks, for event loops that must not block waiting for a whole body.
+ * Chunks are handed over with {@link #feed(ByteBuffer)} as they arrive, and {@link #nextToken()} reports
+ * {@link JsonToken#NEED_MORE_INPUT} instead of blocking when the input ends in the middle of a token.
+ * The scan of a partial string or number resumes where it stopped once more input is fed, so a long value split
+ * into many chunks is still scanned only once. Only the unconsumed bytes of the current token are kept.
+ * <p>
+ * Instances are not thread-safe, and can be used for the next document after {@link #reset()}.
+ */
+public class JsonFeeder {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int ARRAY_VALUE = 3;
+    private static final int NONEMPTY_ARRAY = 4;
+    private static final int EMPTY_OBJECT = 5;
+    private static final int OBJECT_NAME = 6;
+    private static final int DANGLING_NAME = 7;
+    private static final int OBJECT_VALUE = 8;
+    private static final int NONEMPTY_OBJECT = 9;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long bufferOffset;
+    private boolean ended;
+
+    private int scanned;
+    private boolean escaped;
+
+    private int[] stack = new int[32];
+    private int depth;
+    private JsonToken token;
+    private String text;
+    private JsonToken peeked;
+    private String peekedText;
+
+    private final List<Frame> frames = new ArrayList<>();
+    private final JSONArray.Builders builders = new JSONArray.Builders();
+
+    public JsonFeeder() {
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Appends the bytes between the position and the limit of the buffer to the input, and moves its position
+     * to the limit, so the buffer can be reused for the next chunk right away.
+     */
+    public void feed(ByteBuffer chunk) {
+        if (ended) throw new IllegalStateException("Input already ended");
+        int length = chunk.remaining();
+        if (length > buffer.length - limit) makeRoom(length);
+        chunk.get(buffer, limit, length);
+        limit += length;
+    }
+
+    /**
+     * Signals that no more input will be fed, so a pending number can end and a missing end is reported as an error.
+     */
+    public void endOfInput() {
+        ended = true;
+    }
+
+    /**
+     * Returns the next token, or {@link JsonToken#NEED_MORE_INPUT} if the input fed so far ends before it does.
+     * Strings and numbers are only reported once they are complete, {@link JsonToken#END_DOCUMENT}
+     * once the input has ended after the value.
+     */
+    public JsonToken nextToken() {
+        if (peeked != null) {
+            token = peeked;
+            text = peekedText;
+            peeked = null;
+            return token;
+        }
+        token = readToken();
+        return token;
+    }
+
+    /**
+     * Returns the next token without consuming it, or {@link JsonToken#NEED_MORE_INPUT} like {@link #nextToken()}.
+     * The current token and its content stay as they are. Checking for {@link JsonToken#END_ARRAY} before each
+     * {@link #nextValue()} tells when the items of an array are over.
+     */
+    public JsonToken peek() {
+        if (peeked != null) return peeked;
+        String current = text;
+        JsonToken next = readToken();
+        if (next != JsonToken.NEED_MORE_INPUT) {
+            peeked = next;
+            peekedText = text;
+        }
+        text = current;
+        return next;
+    }
+
+    /**
+     * Returns the content of the current {@link JsonToken#NAME} or {@link JsonToken#STRING} token.
+     */
+    public String getString() {
+        if (token != JsonToken.NAME && token != JsonToken.STRING) throw error("Expected a name or a string but was " + token);
+        return text;
+    }
+
+    /**
+     * Returns the literal text of the current {@link JsonToken#NUMBER} token.
+     */
+    public String getNumber() {
+        expect(JsonToken.NUMBER);
+        return text;
+    }
+
+    public boolean getBoolean() {
+        expect(JsonToken.BOOLEAN);
+        return text.equals("true");
+    }
+
+    /**
+     * Reads the next value with all of its nested content into a {@link JSON} node, or returns null if the input fed
+     * so far ends before the value does. The nodes read so far are kept, so after feeding more input
+     * the call is simply repeated until the value is complete. Can be called wherever a value is expected,
+     * also for the items of an array after its {@link JsonToken#BEGIN_ARRAY}, use {@link #peek()} to find its end.
+     */
+    public JSON nextValue() {
+        while (true) {
+            JsonToken next = nextToken();
+            JSON value;
+            switch (next) {
+                case NEED_MORE_INPUT -> {
+                    return null;
+                }
+                case BEGIN_OBJECT -> {
+                    frames.add(new Frame(new JSONObject(), null));
+                    continue;
+                }
+                case BEGIN_ARRAY -> {
+                    frames.add(new Frame(null, builders.acquire()));
+                    continue;
+                }
+                case NAME -> {
+                    if (frames.isEmpty()) throw error("Expected a value but was " + next);
+                    frames.get(frames.size() - 1).name = SymbolTable.KEYS.get(text);
+                    continue;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (frames.isEmpty()) throw error("Expected a value but was " + next);
+                    Frame frame = frames.remove(frames.size() - 1);
+                    if (frame.object != null) {
+                        value = frame.object;
+                    } else {
+                        value = frame.items == null ? frame.numbers.build() : new JSONArray(frame.items);
+                        builders.release();
+                    }
+                }
+                case STRING -> value = SymbolTable.VALUES.get(text);
+                case NUMBER -> value = number(text);
+                case BOOLEAN -> value = new JSONBoolean(text.equals("true"));
+                case NULL -> value = new JSONNull();
+                default -> throw error("Expected a value but was " + next);
+            }
+            if (frames.isEmpty()) return value;
+            frames.get(frames.size() - 1).add(value);
+        }
+    }
+
+    /**
+     * Forgets the current document, also after a parse error, so the instance can be fed the next one.
+     */
+    public void reset() {
+        if (buffer.length > MAX_RETAINED_BUFFER_SIZE) buffer = new byte[BUFFER_SIZE];
+        pos = 0;
+        limit = 0;
+        bufferOffset = 0;
+        ended = false;
+        scanned = 0;
+        escaped = false;
+        depth = 0;
+        stack[depth++] = EMPTY_DOCUMENT;
+        token = null;
+        text = null;
+        peeked = null;
+        peekedText = null;
+        frames.clear();
+        builders.reset();
+    }
+
+    private JsonToken readToken() {
+        while (true) {
+            if (!skipWhitespace()) {
+                if (!ended) return JsonToken.NEED_MORE_INPUT;
+                if (stack[depth - 1] == NONEMPTY_DOCUMENT) return JsonToken.END_DOCUMENT;
+                throw error("Unexpected end of input");
+            }
+            int scope = stack[depth - 1];
+            byte c = buffer[pos];
+            switch (scope) {
+                case NONEMPTY_DOCUMENT -> throw error("Unexpected content after the end of the JSON value");
+                case EMPTY_ARRAY, NONEMPTY_ARRAY -> {
+                    if (c == ']') {
+                        pos++;
+                        depth--;
+                        return JsonToken.END_ARRAY;
+                    }
+                    if (scope == NONEMPTY_ARRAY) {
+                        if (c != ',') throw error("Expected ',' or ']'");
+                        pos++;
+                        stack[depth - 1] = ARRAY_VALUE;
+                        continue;
+                    }
+                }
+                case EMPTY_OBJECT, NONEMPTY_OBJECT -> {
+                    if (c == '}') {
+                        pos++;
+                        depth--;
+                        return JsonToken.END_OBJECT;
+                    }
+                    if (scope == NONEMPTY_OBJECT) {
+                        if (c != ',') throw error("Expected ',' or '}'");
+                        pos++;
+                        stack[depth - 1] = OBJECT_NAME;
+                        continue;
+                    }
+                    return readName();
+                }
+                case OBJECT_NAME -> {
+                    return readName();
+                }
+                case DANGLING_NAME -> {
+                    if (c != ':') throw error("Expected ':'");
+                    pos++;
+                    stack[depth - 1] = OBJECT_VALUE;
+                    continue;
+                }
+                default -> {
+                }
+            }
+            return readValue(c);
+        }
+    }
+
+    private JsonToken readName() {
+        if (buffer[pos] != '"') throw error("Expected a property name");
+        int end = stringEnd();
+        if (end < 0) return JsonToken.NEED_MORE_INPUT;
+        text = string(end);
+        pos = end + 1;
+        stack[depth - 1] = DANGLING_NAME;
+        return JsonToken.NAME;
+    }
+
+    /**
+     * Reads the value starting with the given byte, marking the scope as having a value once the value is complete,
+     * or before a nested object or array is entered.
+     */
+    private JsonToken readValue(byte c) {
+        JsonToken value;
+        switch (c) {
+            case '{', '[' -> {
+                pos++;
+                value = c == '{' ? JsonToken.BEGIN_OBJECT : JsonToken.BEGIN_ARRAY;
+            }
+            case '"' -> {
+                int end = stringEnd();
+                if (end < 0) return JsonToken.NEED_MORE_INPUT;
+                text = string(end);
+                pos = end + 1;
+                value = JsonToken.STRING;
+            }
+            case 't', 'f', 'n' -> {
+                String literal = c == 't' ? "true" : c == 'f' ? "false" : "null";
+                if (!readLiteral(literal)) return JsonToken.NEED_MORE_INPUT;
+                text = literal;
+                value = c == 'n' ? JsonToken.NULL : JsonToken.BOOLEAN;
+            }
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                int end = numberEnd();
+                if (end < 0) return JsonToken.NEED_MORE_INPUT;
+                text = new String(buffer, pos, end - pos, UTF_8);
+                if (!isNumber(pos, end)) throw error("Invalid number '" + text + "'");
+                pos = end;
+                value = JsonToken.NUMBER;
+            }
+            default -> throw error("Unexpected character '" + (char) c + "'");
+        }
+        int scope = stack[depth - 1];
+        stack[depth - 1] = switch (scope) {
+            case EMPTY_DOCUMENT -> NONEMPTY_DOCUMENT;
+            case OBJECT_VALUE -> NONEMPTY_OBJECT;
+            default -> NONEMPTY_ARRAY;
+        };
+        if (value == JsonToken.BEGIN_OBJECT) push(EMPTY_OBJECT);
+        if (value == JsonToken.BEGIN_ARRAY) push(EMPTY_ARRAY);
+        return value;
+    }
+
+    /**
+     * Returns the offset of the quote closing the string starting at the cursor, or -1 if it has not arrived yet.
+     * The scanned offset and whether it follows a backslash are kept, so the scan resumes there.
+     */
+    private int stringEnd() {
+        int i = Math.max(pos + 1, scanned);
+        boolean escape = escaped;
+        while (true) {
+            if (!escape) i = JsonStrings.scan(buffer, i, limit);
+            if (i == limit) break;
+            byte c = buffer[i++];
+            if (escape) {
+                escape = false;
+            } else if (c == '\\') {
+                escape = true;
+            } else {
+                scanned = 0;
+                escaped = false;
+                return i - 1;
+            }
+        }
+        if (ended) throw error("Unterminated string");
+        scanned = i;
+        escaped = escape;
+        return -1;
+    }
+
+    /**
+     * Decodes the content of the string starting at the cursor and closed by the quote at the given offset.
+     */
+    private String string(int end) {
+        if (JsonStrings.scan(buffer, pos + 1, end) == end) return new String(buffer, pos + 1, end - pos - 1, UTF_8);
+        String value = JsonStrings.unescape(ByteBuffer.wrap(buffer), pos + 1, end);
+        if (value == null) throw error("Invalid escape sequence");
+        return value;
+    }
+
+    /**
+     * Returns the offset after the number starting at the cursor, or -1 if more digits may still arrive.
+     */
+    private int numberEnd() {
+        int i = Math.max(pos, scanned);
+        while (i < limit && isNumberChar(buffer[i])) i++;
+        if (i == limit && !ended) {
+            scanned = i;
+            return -1;
+        }
+        scanned = 0;
+        return i;
+    }
+
+    private boolean readLiteral(String literal) {
+        int available = Math.min(limit - pos, literal.length());
+        for (int i = 0; i < available; i++) {
+            if (buffer[pos + i] != literal.charAt(i)) throw error("Expected '" + literal + "'");
+        }
+        if (available < literal.length()) {
+            if (ended) throw error("Expected '" + literal + "'");
+            return false;
+        }
+        pos += literal.length();
+        return true;
+    }
+
+    private boolean skipWhitespace() {
+        if (bufferOffset + pos == 0 && stack[0] == EMPTY_DOCUMENT && !skipByteOrderMark()) return false;
+        while (pos < limit) {
+            byte c = buffer[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return true;
+            pos++;
+        }
+        return false;
+    }
+
+    /**
+     * Returns false if the input could still turn out to start with a byte order mark.
+     */
+    private boolean skipByteOrderMark() {
+        byte[] mark = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        for (int i = 0; i < mark.length; i++) {
+            if (i == limit) return ended;
+            if (buffer[i] != mark[i]) return true;
+        }
+        pos = mark.length;
+        return true;
+    }
+
+    /**
+     * Checks the characters of a number against the grammar of RFC 8259, {@link #numberEnd()} only finds where it ends.
+     */
+    private boolean isNumber(int from, int to) {
+        int i = from;
+        if (buffer[i] == '-') i++;
+        if (i < to && buffer[i] == '0') {
+            i++;
+        } else {
+            int digits = i;
+            i = skipDigits(i, to);
+            if (i == digits) return false;
+        }
+        if (i < to && buffer[i] == '.') {
+            int digits = ++i;
+            i = skipDigits(i, to);
+            if (i == digits) return false;
+        }
+        if (i < to && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            i++;
+            if (i < to && (buffer[i] == '+' || buffer[i] == '-')) i++;
+            int digits = i;
+            i = skipDigits(i, to);
+            if (i == digits) return false;
+        }
+        return i == to;
+    }
+
+    private int skipDigits(int i, int to) {
+        while (i < to && buffer[i] >= '0' && buffer[i] <= '9') i++;
+        return i;
+    }
+
+    private static boolean isNumberChar(byte c) {
+        return c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    private JSONNumber number(String literal) {
+        try {
+            return new JSONNumber(literal);
+        } catch (NumberFormatException e) {
+            throw error(e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the consumed bytes, moving the pending token to the start of the buffer, and grows the buffer if needed.
+     */
+    private void makeRoom(int length) {
+        int pending = limit - pos;
+        if (pending + length > buffer.length) {
+            byte[] grown = new byte[Math.max(pending + length, buffer.length * 2)];
+            System.arraycopy(buffer, pos, grown, 0, pending);
+            buffer = grown;
+        } else {
+            System.arraycopy(buffer, pos, buffer, 0, pending);
+        }
+        bufferOffset += pos;
+        scanned = Math.max(0, scanned - pos);
+        limit = pending;
+        pos = 0;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+
+    private void expect(JsonToken expected) {
+        if (token != expected) throw error("Expected " + expected + " but was " + token);
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message + " at byte offset " + (bufferOffset + pos));
+    }
+
+    /**
+     * An object or an array of {@link #nextValue()} still being read.
+     */
+    private static final class Frame {
+        final JSONObject object;
+        final JSONArray.Builder numbers;
+        List<JSON> items;
+        JSONString name;
+
+        Frame(JSONObject object, JSONArray.Builder numbers) {
+            this.object = object;
+            this.numbers = numbers;
+        }
+
+        void add(JSON value) {
+            if (object != null) {
+                object.put(name, value);
+            } else if (items != null || !(value instanceof JSONNumber number) || !numbers.add(number)) {
+                if (items == null) items = numbers.toItems();
+                items.add(value);
+            }
+        }
+    }
+}
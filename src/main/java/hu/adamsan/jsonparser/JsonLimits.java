@@ -0,0 +1,73 @@
+package hu.adamsan.jsonparser;
+
+/**
+ * Limits checked by {@link JSON#validate(String, JsonLimits)} and its overloads. Lengths and sizes are counted
+ * in chars for strings and in bytes otherwise, string lengths as the content is written between the quotes,
+ * escape sequences included. Instances are immutable, the {@code with} methods return a changed copy.
+ */
+public final class JsonLimits {
+    private static final JsonLimits DEFAULTS = new JsonLimits(1000, 20_000_000, 1000, Long.MAX_VALUE);
+
+    private final int maxDepth;
+    private final int maxStringLength;
+    private final int maxNumberLength;
+    private final long maxSize;
+
+    private JsonLimits(int maxDepth, int maxStringLength, int maxNumberLength, long maxSize) {
+        this.maxDepth = maxDepth;
+        this.maxStringLength = maxStringLength;
+        this.maxNumberLength = maxNumberLength;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Nesting of 1000 arrays and objects, strings of 20 million and numbers of 1000 chars, documents of any size.
+     */
+    public static JsonLimits defaults() {
+        return DEFAULTS;
+    }
+
+    public JsonLimits withMaxDepth(int maxDepth) {
+        return new JsonLimits(checked(maxDepth), maxStringLength, maxNumberLength, maxSize);
+    }
+
+    public JsonLimits withMaxStringLength(int maxStringLength) {
+        return new JsonLimits(maxDepth, checked(maxStringLength), maxNumberLength, maxSize);
+    }
+
+    public JsonLimits withMaxNumberLength(int maxNumberLength) {
+        return new JsonLimits(maxDepth, maxStringLength, checked(maxNumberLength), maxSize);
+    }
+
+    public JsonLimits withMaxSize(long maxSize) {
+        if (maxSize < 0) throw new IllegalArgumentException("Negative limit: " + maxSize);
+        return new JsonLimits(maxDepth, maxStringLength, maxNumberLength, maxSize);
+    }
+
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    public int maxStringLength() {
+        return maxStringLength;
+    }
+
+    public int maxNumberLength() {
+        return maxNumberLength;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    private static int checked(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Negative limit: " + limit);
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "JsonLimits{maxDepth=" + maxDepth + ", maxStringLength=" + maxStringLength
+                + ", maxNumberLength=" + maxNumberLength + ", maxSize=" + maxSize + "}";
+    }
+}
@@ -0,0 +1,196 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Parses a newline delimited JSON file in parallel. The file is memory mapped and cut into chunks ending at line breaks,
+ * the chunks are parsed on the common {@link java.util.concurrent.ForkJoinPool} by the parallel stream,
+ * each one line by line. Line numbers are only counted when a line fails, and then at most once per chunk.
+ */
+final class JsonLines {
+    private static final int SEGMENT_SIZE = 1 << 30;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final long[] firstLines;
+
+    private JsonLines(Path file) {
+        for (ByteBuffer segment : mapSegments(file)) addChunks(segment, segment.limit());
+        firstLines = new long[chunks.size()];
+        Arrays.fill(firstLines, -1);
+        if (firstLines.length > 0) firstLines[0] = 1;
+    }
+
+    static Stream<JSON> parse(Path file, Consumer<? super JsonLineException> errors) {
+        return new JsonLines(file).stream(() -> new Utf8JsonParser()::parse, errors);
+    }
+
+    static <T> Stream<T> bind(Path file, Type type, Consumer<? super JsonLineException> errors) {
+        TypeBinding binding = TypeBinding.of(type);
+        return new JsonLines(file).stream(() -> new LineBinder<>(binding), errors);
+    }
+
+    /**
+     * Maps the file in segments of up to {@link #SEGMENT_SIZE} bytes, each ending after a line break but the last one.
+     */
+    static List<ByteBuffer> mapSegments(Path file) {
+        List<ByteBuffer> segments = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long start = 0; start < size; ) {
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+                int length = start + segment.limit() == size ? segment.limit() : lastLineEnd(segment);
+                if (length == 0) {
+                    long line = 1;
+                    for (ByteBuffer before : segments) line += lineBreaks(before);
+                    throw new JsonLineException(line, "Line is longer than " + SEGMENT_SIZE + " bytes");
+                }
+                segments.add(segment.slice(0, length));
+                start += length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return segments;
+    }
+
+    /**
+     * Parses the chunks in parallel, each with its own parser, reused for all of its lines.
+     */
+    private <T> Stream<T> stream(Supplier<Function<ByteBuffer, T>> parsers, Consumer<? super JsonLineException> errors) {
+        return IntStream.range(0, chunks.size()).parallel()
+                .mapToObj(chunk -> parseChunk(chunk, parsers.get(), errors))
+                .flatMap(List::stream);
+    }
+
+    private <T> List<T> parseChunk(int chunk, Function<ByteBuffer, T> parser, Consumer<? super JsonLineException> errors) {
+        ByteBuffer buffer = chunks.get(chunk);
+        ByteBuffer line = buffer.duplicate();
+        List<T> values = new ArrayList<>();
+        int lineIndex = 0;
+        for (int start = 0; start < buffer.limit(); lineIndex++) {
+            int end = lineEnd(buffer, start);
+            int next = end + 1;
+            if (end > start && buffer.get(end - 1) == '\r') end--;
+            if (!isBlank(buffer, start, end)) {
+                line.limit(end).position(start);
+                try {
+                    values.add(parser.apply(line));
+                } catch (JsonParseException | JsonConversionException | JSONNumber.JsonNumberConversionException
+                         | ArithmeticException | ClassCastException e) {
+                    report(errors, new JsonLineException(firstLine(chunk) + lineIndex, e));
+                }
+            }
+            start = next;
+        }
+        return values;
+    }
+
+    /**
+     * Passes the error to the handler, one at a time, as the chunks are parsed on different threads.
+     */
+    private synchronized void report(Consumer<? super JsonLineException> errors, JsonLineException error) {
+        errors.accept(error);
+    }
+
+    /**
+     * Cuts the segment into chunks of about {@link #CHUNK_SIZE} bytes, each ending after a line break.
+     */
+    private void addChunks(ByteBuffer segment, int length) {
+        int start = 0;
+        while (start < length) {
+            int end = start + CHUNK_SIZE >= length ? length : lineEnd(segment, start + CHUNK_SIZE) + 1;
+            end = Math.min(end, length);
+            chunks.add(segment.slice(start, end - start));
+            start = end;
+        }
+    }
+
+    /**
+     * Returns the number of the first line of the chunk, counting the lines of the chunks before it if not known yet.
+     */
+    private synchronized long firstLine(int chunk) {
+        int known = chunk;
+        while (firstLines[known] < 0) known--;
+        for (; known < chunk; known++) firstLines[known + 1] = firstLines[known] + lineBreaks(chunks.get(known));
+        return firstLines[chunk];
+    }
+
+    static int lineBreaks(ByteBuffer buffer) {
+        int count = 0;
+        for (int i = 0; i < buffer.limit(); i++) if (buffer.get(i) == '\n') count++;
+        return count;
+    }
+
+    static int lineEnd(ByteBuffer buffer, int from) {
+        int i = from;
+        while (i < buffer.limit() && buffer.get(i) != '\n') i++;
+        return i;
+    }
+
+    private static int lastLineEnd(ByteBuffer buffer) {
+        int i = buffer.limit() - 1;
+        while (i >= 0 && buffer.get(i) != '\n') i--;
+        return i + 1;
+    }
+
+    static boolean isBlank(ByteBuffer buffer, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte c = buffer.get(i);
+            if (c != ' ' && c != '\t' && c != '\r') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Binds lines one after the other with the same plan, decoding each into the same chars, read by the same reader.
+     * A line is decoded as {@link StandardCharsets#UTF_8} does, and never needs more chars than it has bytes.
+     */
+    static final class LineBinder<T> implements Function<ByteBuffer, T> {
+        private final TypeBinding binding;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private CharBuffer chars = CharBuffer.allocate(256);
+        private JsonReader reader;
+
+        LineBinder(TypeBinding binding) {
+            this.binding = binding;
+        }
+
+        /**
+         * Binds the line between the position and the limit of the buffer, moving its position to the limit.
+         */
+        @Override
+        public T apply(ByteBuffer line) {
+            if (chars.capacity() < line.remaining()) chars = CharBuffer.allocate(Math.max(line.remaining(), chars.capacity() * 2));
+            chars.clear();
+            decoder.reset();
+            decoder.decode(line, chars, true);
+            decoder.flush(chars);
+            if (reader == null) reader = new JsonReader(chars.array(), chars.position());
+            else reader.reset(chars.array(), chars.position());
+            return StreamingBinder.bind(reader, binding);
+        }
+    }
+}
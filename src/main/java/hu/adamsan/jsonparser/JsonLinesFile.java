@@ -0,0 +1,430 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Random access to the records of a newline delimited JSON file: the values of its non-blank lines, numbered from 0.
+ * The file is memory mapped, and the byte offset of every record is kept in an index file next to it,
+ * {@code <name>.idx}, built by one scan of the file when it is first opened, and reused while the file keeps its size
+ * and modification time. A secondary index, {@code <name>.<key>.idx}, is a hash table from the values of a top-level
+ * key to the records holding them. The index files are memory mapped too, so reading a range of records or looking up
+ * a key only touches the pages holding them, however large the file is.
+ * <p>
+ * When the directory of the file is not writable, the indexes are built into temporary files for the instance.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class JsonLinesFile {
+    private static final long OFFSETS_MAGIC = 0x4A534F4E4C4F4646L;
+    private static final long KEYS_MAGIC = 0x4A534F4E4C4B4559L;
+    private static final int HEADER_LONGS = 5;
+
+    private final Path file;
+    private final List<ByteBuffer> segments;
+    private final long[] segmentStarts;
+    private final MappedLongs offsets;
+    private final long count;
+    private final String key;
+    private final JsonPath keyPath;
+    private final MappedLongs keyTable;
+    private final long keyCapacity;
+
+    private JsonLinesFile(Path file, String key, Consumer<? super JsonLineException> errors) {
+        this.file = file;
+        this.segments = JsonLines.mapSegments(file);
+        this.segmentStarts = new long[segments.size()];
+        for (int i = 1; i < segmentStarts.length; i++)
+            segmentStarts[i] = segmentStarts[i - 1] + segments.get(i - 1).limit();
+        try {
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            IndexFile index = IndexFile.open(sibling(file, ".idx"), OFFSETS_MAGIC, size, modified, "");
+            if (index == null) index = buildOffsets(size, modified);
+            this.offsets = index.data;
+            this.count = index.entries;
+            this.key = key;
+            this.keyPath = key == null ? null : JsonPath.property(key);
+            if (key == null) {
+                this.keyTable = null;
+                this.keyCapacity = 0;
+            } else {
+                Path keyIndex = sibling(file, "." + key.replaceAll("[^A-Za-z0-9_-]", "_") + ".idx");
+                IndexFile keys = IndexFile.open(keyIndex, KEYS_MAGIC, size, modified, key);
+                if (keys == null) keys = buildKeys(keyIndex, size, modified, errors);
+                this.keyTable = keys.data;
+                this.keyCapacity = keys.entries;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens the file, building its offset index if there is none or the file changed since.
+     */
+    public static JsonLinesFile open(Path file) {
+        return new JsonLinesFile(file, null, null);
+    }
+
+    /**
+     * Like {@link #open(Path)}, with a secondary index on the given top-level key for {@link #find(String)}.
+     * Records that are malformed, or have no string, number or boolean under the key, are left out of the key index,
+     * and can still be read by their index.
+     */
+    public static JsonLinesFile open(Path file, String key) {
+        return open(file, key, e -> {
+        });
+    }
+
+    /**
+     * Like {@link #open(Path, String)}, passing the malformed lines found while the key index is built to the handler.
+     */
+    public static JsonLinesFile open(Path file, String key, Consumer<? super JsonLineException> errors) {
+        return new JsonLinesFile(file, Objects.requireNonNull(key), errors);
+    }
+
+    /**
+     * Returns the number of records, blank lines are not counted.
+     */
+    public long size() {
+        return count;
+    }
+
+    public JSON record(long index) {
+        Objects.checkIndex(index, count);
+        return read(index, new Utf8JsonParser()::parse);
+    }
+
+    /**
+     * Binds the record to the given class like {@link JSON#parse(String, Class)}.
+     */
+    public <T> T record(long index, Class<T> clazz) {
+        return record(index, (Type) clazz);
+    }
+
+    public <T> T record(long index, Type type) {
+        Objects.checkIndex(index, count);
+        return read(index, new JsonLines.LineBinder<T>(TypeBinding.of(type)));
+    }
+
+    /**
+     * Returns the records from the first index up to, but not including, the second one.
+     */
+    public List<JSON> records(long from, long to) {
+        return records(from, to, new Utf8JsonParser()::parse);
+    }
+
+    public <T> List<T> records(long from, long to, Class<T> clazz) {
+        return records(from, to, (Type) clazz);
+    }
+
+    public <T> List<T> records(long from, long to, Type type) {
+        return records(from, to, new JsonLines.LineBinder<T>(TypeBinding.of(type)));
+    }
+
+    /**
+     * Returns the records whose indexed key has the given value, in file order. String values are matched by their
+     * content, numbers and booleans by their text as {@link JSON#toString()} writes them.
+     *
+     * @throws IllegalStateException if the file was opened without a key
+     */
+    public List<JSON> find(String value) {
+        if (keyTable == null) throw new IllegalStateException("No key index, open the file with a key to find records");
+        long hash = hash(value);
+        List<Long> candidates = new ArrayList<>();
+        long mask = keyCapacity - 1;
+        for (long slot = hash & mask; ; slot = slot + 1 & mask) {
+            long record = keyTable.get(2 * slot + 1) - 1;
+            if (record < 0) break;
+            if (keyTable.get(2 * slot) == hash) candidates.add(record);
+        }
+        Collections.sort(candidates);
+        List<JSON> found = new ArrayList<>(candidates.size());
+        Function<ByteBuffer, JSON> parser = new Utf8JsonParser()::parse;
+        for (long record : candidates) {
+            JSON json = read(record, parser);
+            if (value.equals(keyText(json.get(key)))) found.add(json);
+        }
+        return found;
+    }
+
+    /**
+     * Like {@link #find(String)}, converting the records to the given class like {@link JSON#convert(Class)}.
+     */
+    public <T> List<T> find(String value, Class<T> clazz) {
+        return find(value).stream().map(json -> json.convert(clazz)).toList();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonLinesFile{" + file + ", " + count + " records" + (key != null ? ", key " + key : "") + "}";
+    }
+
+    private <T> List<T> records(long from, long to, Function<ByteBuffer, T> parser) {
+        Objects.checkFromToIndex(from, to, count);
+        List<T> values = new ArrayList<>((int) Math.min(to - from, 1 << 16));
+        for (long i = from; i < to; i++) values.add(read(i, parser));
+        return values;
+    }
+
+    /**
+     * Parses the line of the record, failures are reported with the line number, counted only then.
+     */
+    private <T> T read(long index, Function<ByteBuffer, T> parser) {
+        long offset = offsets.get(index);
+        int segment = segmentOf(offset);
+        ByteBuffer line = segments.get(segment).duplicate();
+        int start = (int) (offset - segmentStarts[segment]);
+        int end = JsonLines.lineEnd(line, start);
+        if (end > start && line.get(end - 1) == '\r') end--;
+        line.limit(end).position(start);
+        try {
+            return parser.apply(line);
+        } catch (JsonParseException | JsonConversionException | JSONNumber.JsonNumberConversionException e) {
+            throw new JsonLineException(lineNumber(segment, start), e);
+        }
+    }
+
+    private int segmentOf(long offset) {
+        int segment = Arrays.binarySearch(segmentStarts, offset);
+        return segment >= 0 ? segment : -segment - 2;
+    }
+
+    private long lineNumber(int segment, int offset) {
+        long line = 1;
+        for (int i = 0; i < segment; i++) line += JsonLines.lineBreaks(segments.get(i));
+        return line + JsonLines.lineBreaks(segments.get(segment).slice(0, offset));
+    }
+
+    /**
+     * Scans the lines of the file and writes the offsets of the non-blank ones after the header.
+     */
+    private IndexFile buildOffsets(long size, long modified) throws IOException {
+        IndexWriter writer = new IndexWriter(sibling(file, ".idx"));
+        try (FileChannel channel = writer.channel()) {
+            ByteBuffer out = ByteBuffer.allocate(1 << 16);
+            channel.position(IndexFile.headerSize(""));
+            long records = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                ByteBuffer segment = segments.get(i);
+                for (int start = 0; start < segment.limit(); ) {
+                    int end = JsonLines.lineEnd(segment, start);
+                    if (!JsonLines.isBlank(segment, start, end)) {
+                        if (!out.hasRemaining()) drain(out, channel);
+                        out.putLong(segmentStarts[i] + start);
+                        records++;
+                    }
+                    start = end + 1;
+                }
+            }
+            drain(out, channel);
+            channel.write(IndexFile.header(OFFSETS_MAGIC, size, modified, records, ""), 0);
+        }
+        return writer.publish(OFFSETS_MAGIC, size, modified, "");
+    }
+
+    /**
+     * Builds the hash table with linear probing in a memory mapped file, two longs per slot: the hash of the value
+     * and the record plus one, so an empty slot is zero. The table is at most half full.
+     */
+    private IndexFile buildKeys(Path keyIndex, long size, long modified, Consumer<? super JsonLineException> errors)
+            throws IOException {
+        long capacity = Math.max(2, Long.highestOneBit(Math.max(1, count)) << 2);
+        long mask = capacity - 1;
+        IndexWriter writer = new IndexWriter(keyIndex);
+        try (FileChannel channel = writer.channel()) {
+            long headerSize = IndexFile.headerSize(key);
+            channel.write(IndexFile.header(KEYS_MAGIC, size, modified, capacity, key), 0);
+            channel.write(ByteBuffer.allocate(1), headerSize + capacity * 2 * Long.BYTES - 1);
+            MappedLongs table = new MappedLongs(channel, FileChannel.MapMode.READ_WRITE, headerSize, capacity * 2);
+            for (long record = 0; record < count; record++) {
+                String text;
+                try {
+                    text = read(record, this::keyText);
+                } catch (JsonLineException e) {
+                    try {
+                        errors.accept(e);
+                    } catch (RuntimeException thrown) {
+                        writer.discard();
+                        throw thrown;
+                    }
+                    continue;
+                }
+                if (text == null) continue;
+                long hash = hash(text);
+                long slot = hash & mask;
+                while (table.get(2 * slot + 1) != 0) slot = slot + 1 & mask;
+                table.put(2 * slot, hash);
+                table.put(2 * slot + 1, record + 1);
+            }
+            table.force();
+        }
+        return writer.publish(KEYS_MAGIC, size, modified, key);
+    }
+
+    private String keyText(ByteBuffer line) {
+        List<JSON> values = keyPath.extract(line);
+        return values.isEmpty() ? null : keyText(values.get(0));
+    }
+
+    /**
+     * Strings by their content, numbers and booleans by their text, and null for anything else.
+     */
+    private static String keyText(JSON value) {
+        if (value instanceof JSONString string) return string.value;
+        if (value instanceof JSONNumber || value instanceof JSONBoolean) return value.toString();
+        return null;
+    }
+
+    /**
+     * 64-bit FNV-1a of the chars, so values colliding in {@link String#hashCode()} are told apart.
+     */
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        return hash;
+    }
+
+    private static void drain(ByteBuffer out, FileChannel channel) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) channel.write(out);
+        out.clear();
+    }
+
+    private static Path sibling(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * The data of an index file after its header, which holds the magic number of its kind, the size and
+     * the modification time of the indexed file, the number of entries, and the key of a key index.
+     */
+    private record IndexFile(MappedLongs data, long entries) {
+        /**
+         * Returns null if the index does not exist, or was built for another key or another version of the file.
+         */
+        static IndexFile open(Path index, long magic, long size, long modified, String key) throws IOException {
+            if (!Files.isRegularFile(index)) return null;
+            try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+                ByteBuffer expected = header(magic, size, modified, 0, key);
+                if (channel.size() < expected.remaining()) return null;
+                ByteBuffer actual = ByteBuffer.allocate(expected.remaining());
+                while (actual.hasRemaining()) channel.read(actual);
+                actual.flip();
+                long entries = actual.getLong(3 * Long.BYTES);
+                actual.putLong(3 * Long.BYTES, 0);
+                if (!actual.equals(expected)) return null;
+                long longs = magic == KEYS_MAGIC ? entries * 2 : entries;
+                if (channel.size() != headerSize(key) + longs * Long.BYTES) return null;
+                return new IndexFile(new MappedLongs(channel, FileChannel.MapMode.READ_ONLY, headerSize(key), longs), entries);
+            }
+        }
+
+        static long headerSize(String key) {
+            int keyLongs = (key.getBytes(StandardCharsets.UTF_8).length + Long.BYTES - 1) / Long.BYTES;
+            return (long) (HEADER_LONGS + keyLongs) * Long.BYTES;
+        }
+
+        static ByteBuffer header(long magic, long size, long modified, long entries, String key) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate((int) headerSize(key));
+            header.putLong(magic).putLong(size).putLong(modified).putLong(entries).putLong(keyBytes.length).put(keyBytes);
+            return header.clear();
+        }
+    }
+
+    /**
+     * Writes an index into a temporary file, which replaces the index at once when it is complete,
+     * so other processes never see half of it.
+     */
+    private static final class IndexWriter {
+        private final Path index;
+        private final Path temporary;
+        private final boolean persistent;
+
+        IndexWriter(Path index) throws IOException {
+            this.index = index;
+            Path created;
+            boolean writable = true;
+            try {
+                created = Files.createTempFile(index.toAbsolutePath().getParent(), index.getFileName().toString(), ".tmp");
+            } catch (IOException | SecurityException e) {
+                created = Files.createTempFile(index.getFileName().toString(), ".tmp");
+                created.toFile().deleteOnExit();
+                writable = false;
+            }
+            this.temporary = created;
+            this.persistent = writable;
+        }
+
+        FileChannel channel() throws IOException {
+            return FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Deletes the temporary file of an index that is given up.
+         */
+        void discard() {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                temporary.toFile().deleteOnExit();
+            }
+        }
+
+        IndexFile publish(long magic, long size, long modified, String key) throws IOException {
+            Path written = temporary;
+            if (persistent) {
+                Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                written = index;
+            }
+            return IndexFile.open(written, magic, size, modified, key);
+        }
+    }
+
+    /**
+     * Longs of an index file, mapped in pages of 1 GB, as a single buffer only reaches 2 GB.
+     */
+    private static final class MappedLongs {
+        private static final int PAGE_SHIFT = 27;
+        private static final long PAGE_MASK = (1L << PAGE_SHIFT) - 1;
+
+        private final LongBuffer[] pages;
+        private final List<MappedByteBuffer> mapped = new ArrayList<>();
+
+        MappedLongs(FileChannel channel, FileChannel.MapMode mode, long position, long longs) throws IOException {
+            pages = new LongBuffer[(int) ((longs + PAGE_MASK) >>> PAGE_SHIFT)];
+            for (int i = 0; i < pages.length; i++) {
+                long first = (long) i << PAGE_SHIFT;
+                long length = Math.min(PAGE_MASK + 1, longs - first) * Long.BYTES;
+                MappedByteBuffer page = channel.map(mode, position + first * Long.BYTES, length);
+                mapped.add(page);
+                pages[i] = page.asLongBuffer();
+            }
+        }
+
+        long get(long index) {
+            return pages[(int) (index >>> PAGE_SHIFT)].get((int) (index & PAGE_MASK));
+        }
+
+        void put(long index, long value) {
+            pages[(int) (index >>> PAGE_SHIFT)].put((int) (index & PAGE_MASK), value);
+        }
+
+        void force() {
+            for (MappedByteBuffer page : mapped) page.force();
+        }
+    }
+}
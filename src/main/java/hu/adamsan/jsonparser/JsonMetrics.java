@@ -0,0 +1,21 @@
+package hu.adamsan.jsonparser;
+
+/**
+ * Listener told about every parse, convert and write, installed with {@link JSON#setMetrics(JsonMetrics)}.
+ * It is called on the thread doing the work, right after it, so it should only update counters.
+ * {@link JsonMetricsRecorder} is a ready made implementation with counters and latency histograms.
+ */
+public interface JsonMetrics {
+    enum Operation {
+        PARSE,
+        CONVERT,
+        WRITE
+    }
+
+    /**
+     * @param type the class converted to or written, or bound to by a typed parse, null for parsing a tree
+     * @param size the length of the input in chars or bytes when parsing, of the output in chars when writing,
+     *             0 when converting
+     */
+    void record(Operation operation, Class<?> type, long size, long nanos);
+}
@@ -0,0 +1,66 @@
+package hu.adamsan.jsonparser;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the operations and their sizes, and keeps a histogram of their latencies with a bucket for every power of two
+ * nanoseconds, so recording is a few uncontended increments and percentiles are accurate within a factor of two.
+ */
+public final class JsonMetricsRecorder implements JsonMetrics {
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] counts = adders();
+    private final LongAdder[] sizes = adders();
+    private final AtomicLongArray latencies = new AtomicLongArray(Operation.values().length * BUCKETS);
+
+    @Override
+    public void record(Operation operation, Class<?> type, long size, long nanos) {
+        counts[operation.ordinal()].increment();
+        sizes[operation.ordinal()].add(size);
+        latencies.incrementAndGet(operation.ordinal() * BUCKETS + bucket(nanos));
+    }
+
+    public long count(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    /**
+     * Returns the sum of the sizes, in chars or bytes, see {@link JsonMetrics#record(Operation, Class, long, long)}.
+     */
+    public long totalSize(Operation operation) {
+        return sizes[operation.ordinal()].sum();
+    }
+
+    /**
+     * Returns the upper bound in nanoseconds of the histogram bucket holding the given percentile, from 0 to 100,
+     * or 0 if nothing was recorded yet.
+     */
+    public long latencyPercentile(Operation operation, double percentile) {
+        if (percentile < 0 || percentile > 100) throw new IllegalArgumentException("Not a percentile: " + percentile);
+        long[] histogram = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += histogram[i] = latencies.get(operation.ordinal() * BUCKETS + i);
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i + 1) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Bucket i holds the latencies from 2^i to 2^(i+1) - 1 nanoseconds, bucket 0 also holds 0.
+     */
+    private static int bucket(long nanos) {
+        return nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[Operation.values().length];
+        for (int i = 0; i < adders.length; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+}
@@ -0,0 +1,14 @@
+package hu.adamsan.jsonparser;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class to get a generated {@link JsonBinder} from the annotation processor of the JSONParser-processor module.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JsonModel {
+}
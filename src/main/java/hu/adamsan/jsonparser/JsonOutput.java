@@ -0,0 +1,188 @@
+package hu.adamsan.jsonparser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Collects JSON text in a fixed size char buffer and hands it to the target {@link Appendable} in large chunks.
+ * Strings are escaped and numbers are formatted directly into the buffer, without intermediate strings.
+ */
+final class JsonOutput {
+    private static final int BUFFER_SIZE = 8192;
+    /**
+     * A string builder grows anyway, a large buffer would only be allocated and copied from for short texts.
+     */
+    private static final int STRING_BUILDER_BUFFER_SIZE = 256;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final double[] DOUBLE_POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
+    private final Appendable out;
+    private final char[] buffer;
+    private final CharBuffer wrapped;
+    private int count;
+    private long flushed;
+
+    JsonOutput(Appendable out) {
+        this.out = out;
+        this.buffer = new char[out instanceof StringBuilder ? STRING_BUILDER_BUFFER_SIZE : BUFFER_SIZE];
+        this.wrapped = CharBuffer.wrap(buffer);
+    }
+
+    void write(char c) {
+        if (count == buffer.length) flushBuffer();
+        buffer[count++] = c;
+    }
+
+    void write(String s) {
+        writeChunk(s, 0, s.length());
+    }
+
+    void write(char[] chars) {
+        if (chars.length > buffer.length - count) flushBuffer();
+        if (chars.length > buffer.length) {
+            append(chars, chars.length);
+            return;
+        }
+        System.arraycopy(chars, 0, buffer, count, chars.length);
+        count += chars.length;
+    }
+
+    void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+        if (buffer.length - count < 20) flushBuffer();
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) digits++;
+        int end = count + digits;
+        for (int i = end - 1; i >= count; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+    }
+
+    /**
+     * Writes a finite value as {@link Double#toString(double)} does, formatting it in the buffer without a string when
+     * it is printed without an exponent, from 10<sup>-3</sup> up to 10<sup>7</sup>, and has at most 15 decimals.
+     * The fewest decimals whose digits, divided by the power of ten, give back the value are written; the division
+     * of two exact doubles is correctly rounded, so the text parses back to the same value.
+     */
+    void writeDouble(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude >= 1e-3 && magnitude < 1e7) {
+            for (int scale = 0; scale < DOUBLE_POWERS_OF_TEN.length; scale++) {
+                double scaled = magnitude * DOUBLE_POWERS_OF_TEN[scale];
+                if (scaled >= MAX_EXACT_LONG) break;
+                long digits = Math.round(scaled);
+                if (digits / DOUBLE_POWERS_OF_TEN[scale] == magnitude) {
+                    if (value < 0) write('-');
+                    writeDecimal(digits, scale);
+                    return;
+                }
+            }
+        }
+        write(Double.toString(value));
+    }
+
+    /**
+     * Writes digits with the given number of them after the decimal point, and ".0" if there are none.
+     */
+    private void writeDecimal(long digits, int scale) {
+        long divisor = (long) DOUBLE_POWERS_OF_TEN[scale];
+        long fraction = digits % divisor;
+        writeLong(digits / divisor);
+        write('.');
+        if (scale == 0) {
+            write('0');
+            return;
+        }
+        for (long limit = divisor / 10; limit > fraction && limit > 1; limit /= 10) write('0');
+        writeLong(fraction);
+    }
+
+    /**
+     * Writes the value in quotes, escaping quotes, backslashes and control characters.
+     * The runs of chars between them are copied in one go.
+     */
+    void writeString(CharSequence value) {
+        write('"');
+        int length = value.length();
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            writeChunk(value, from, i);
+            write('\\');
+            switch (c) {
+                case '"', '\\' -> write(c);
+                case '\n' -> write('n');
+                case '\r' -> write('r');
+                case '\t' -> write('t');
+                case '\b' -> write('b');
+                case '\f' -> write('f');
+                default -> {
+                    write('u');
+                    write('0');
+                    write('0');
+                    write(HEX[c >> 4]);
+                    write(HEX[c & 0xF]);
+                }
+            }
+            from = i + 1;
+        }
+        writeChunk(value, from, length);
+        write('"');
+    }
+
+    private void writeChunk(CharSequence s, int from, int to) {
+        if (!(s instanceof String string)) {
+            for (int i = from; i < to; i++) write(s.charAt(i));
+            return;
+        }
+        while (from < to) {
+            if (count == buffer.length) flushBuffer();
+            int chunk = Math.min(to - from, buffer.length - count);
+            string.getChars(from, from + chunk, buffer, count);
+            count += chunk;
+            from += chunk;
+        }
+    }
+
+    void flush() {
+        flushBuffer();
+    }
+
+    /**
+     * Returns the number of chars written so far.
+     */
+    long length() {
+        return flushed + count;
+    }
+
+    private void flushBuffer() {
+        append(buffer, count);
+        count = 0;
+    }
+
+    private void append(char[] chars, int length) {
+        if (length == 0) return;
+        flushed += length;
+        try {
+            if (out instanceof StringBuilder builder) builder.append(chars, 0, length);
+            else if (out instanceof Writer writer) writer.write(chars, 0, length);
+            else if (chars == buffer) out.append(wrapped, 0, length);
+            else out.append(CharBuffer.wrap(chars), 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
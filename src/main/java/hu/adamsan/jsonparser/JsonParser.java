@@ -0,0 +1,309 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Single pass recursive descent parser. Walks the input once with an index cursor and builds the JSON nodes directly,
+ * without cutting the input into substrings for every nesting level.
+ * <p>
+ * An instance can be kept, one per thread, and used for any number of documents: its number scratch space and
+ * the buffers collecting numeric arrays are reused, so after the first few documents parsing allocates nothing
+ * but the resulting nodes. Instances are not thread-safe.
+ */
+public final class JsonParser {
+    /**
+     * Strings up to this length are checked for backslashes char by char, like the symbol tables hash them.
+     */
+    private static final int SHORT_STRING = 64;
+
+    private String json;
+    private int length;
+    private int pos;
+    private final JSONNumber number = new JSONNumber();
+    private final JSONArray.Builders builders = new JSONArray.Builders();
+    private final JsonStrings.TextScanner strings = new JsonStrings.TextScanner();
+    private Utf8JsonParser utf8;
+
+    public JSON parse(String json) {
+        Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JSON value = parse(json, 0, json.length());
+        Instrumentation.parsed(event, value, null, json.length(), start);
+        return value;
+    }
+
+    /**
+     * Parses UTF-8 encoded bytes, like {@link JSON#parse(byte[])}.
+     */
+    public JSON parse(byte[] json) {
+        return parse(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Parses the UTF-8 encoded bytes between the position and the limit of the buffer, like {@link JSON#parse(ByteBuffer)}.
+     */
+    public JSON parse(ByteBuffer json) {
+        if (utf8 == null) utf8 = new Utf8JsonParser();
+        Instrumentation.ParseEvent event = new Instrumentation.ParseEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JSON value = utf8.parse(json);
+        Instrumentation.parsed(event, value, null, json.remaining(), start);
+        return value;
+    }
+
+    /**
+     * Drops the reference to the last input and the scratch buffers that grew too large, also after a failed parse.
+     * Parsing calls it anyway, calling it between documents only lets the memory go earlier.
+     */
+    public void reset() {
+        clear();
+        strings.reset(null);
+    }
+
+    private void clear() {
+        json = null;
+        length = 0;
+        pos = 0;
+        builders.reset();
+        if (utf8 != null) utf8.reset();
+    }
+
+    /**
+     * Parses the value between the given offsets, error positions are still counted from the beginning of the string.
+     */
+    JSON parse(String json, int start, int end) {
+        begin(json);
+        this.pos = start;
+        this.length = end;
+        JSON value = readValue();
+        end();
+        return value;
+    }
+
+    JSONArray parseArray(String json) {
+        begin(json);
+        skipWhitespace();
+        expect('[');
+        JSONArray array = readArray();
+        end();
+        return array;
+    }
+
+    JSONObject parseObject(String json) {
+        begin(json);
+        skipWhitespace();
+        expect('{');
+        JSONObject object = readObject();
+        end();
+        return object;
+    }
+
+    /**
+     * Starts parsing the text, the string scanner keeps what it learned about the text when parsing another range of it.
+     */
+    private void begin(String json) {
+        clear();
+        this.json = json;
+        this.length = json.length();
+        strings.reset(json);
+    }
+
+    private void end() {
+        skipWhitespace();
+        if (pos < length) throw error("Unexpected content after the end of the JSON value");
+        json = null;
+    }
+
+    private JSON readValue() {
+        skipWhitespace();
+        if (pos >= length) throw error("Unexpected end of input");
+        char c = json.charAt(pos);
+        return switch (c) {
+            case '"' -> readString(SymbolTable.VALUES);
+            case '{' -> {
+                pos++;
+                yield readObject();
+            }
+            case '[' -> {
+                pos++;
+                yield readArray();
+            }
+            case 'n' -> {
+                readLiteral("null");
+                yield new JSONNull();
+            }
+            case 't' -> {
+                readLiteral("true");
+                yield new JSONBoolean(true);
+            }
+            case 'f' -> {
+                readLiteral("false");
+                yield new JSONBoolean(false);
+            }
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> readNumber();
+            default -> throw error("Unexpected character '" + c + "'");
+        };
+    }
+
+    private JSONObject readObject() {
+        JSONObject object = new JSONObject();
+        skipWhitespace();
+        if (pos < length && json.charAt(pos) == '}') {
+            pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (pos >= length || json.charAt(pos) != '"') throw error("Expected a property name");
+            JSONString key = readString(SymbolTable.KEYS);
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue());
+            skipWhitespace();
+            if (pos >= length) throw error("Unterminated object");
+            char c = json.charAt(pos);
+            if (c != ',' && c != '}') throw error("Expected ',' or '}' but found '" + c + "'");
+            pos++;
+            if (c == '}') return object;
+        }
+    }
+
+    /**
+     * Numbers are scanned into a reused scratch instance and packed while the array holds nothing but numbers.
+     */
+    private JSONArray readArray() {
+        JSONArray.Builder numbers = builders.acquire();
+        JSONArray array = readItems(numbers);
+        builders.release();
+        return array;
+    }
+
+    private JSONArray readItems(JSONArray.Builder numbers) {
+        List<JSON> items = null;
+        skipWhitespace();
+        if (pos < length && json.charAt(pos) == ']') {
+            pos++;
+            return numbers.build();
+        }
+        while (true) {
+            skipWhitespace();
+            if (items == null && pos < length && isNumberStart(json.charAt(pos))) {
+                int start = skipNumber();
+                number.scan(json, start, pos);
+                if (!numbers.add(number)) {
+                    items = numbers.toItems();
+                    items.add(new JSONNumber(json, start, pos));
+                }
+            } else {
+                if (items == null) items = numbers.toItems();
+                items.add(readValue());
+            }
+            skipWhitespace();
+            if (pos >= length) throw error("Unterminated array");
+            char c = json.charAt(pos);
+            if (c != ',' && c != ']') throw error("Expected ',' or ']' but found '" + c + "'");
+            pos++;
+            if (c == ']') return items == null ? numbers.build() : new JSONArray(items);
+        }
+    }
+
+    /**
+     * Takes the content up to the first quote as it is when it has no backslash, and decodes the string otherwise.
+     * Short content is checked char by char, long content is copied first and the copy is searched while it is
+     * still in the cache, so a document without escapes is not read once more to look for them.
+     */
+    private JSONString readString(SymbolTable symbols) {
+        int start = pos + 1;
+        int quote = json.indexOf('"', start);
+        if (quote < 0 || quote > length) quote = length;
+        if (quote - start <= SHORT_STRING) {
+            for (int i = start; i < quote; i++) if (json.charAt(i) == '\\') return readEscapedString(symbols, start, i);
+            if (quote == length) throw error("Unterminated string");
+            pos = quote + 1;
+            return symbols.get(json, start, quote);
+        }
+        String content = json.substring(start, quote);
+        int backslash = content.indexOf('\\');
+        if (backslash >= 0) return readEscapedString(symbols, start, start + backslash);
+        if (quote == length) throw error("Unterminated string");
+        pos = quote + 1;
+        return symbols.get(content);
+    }
+
+    /**
+     * Finds the end of a string with escape sequences and decodes it, given the offset of its first backslash.
+     */
+    private JSONString readEscapedString(SymbolTable symbols, int start, int backslash) {
+        String value = strings.decode(start, backslash, length);
+        int end = strings.end();
+        if (end >= length) throw error("Unterminated string");
+        if (value == null) {
+            pos = end;
+            throw error("Invalid escape sequence");
+        }
+        pos = end + 1;
+        return symbols.get(value);
+    }
+
+    private JSONNumber readNumber() {
+        int start = skipNumber();
+        return new JSONNumber(json, start, pos);
+    }
+
+    private int skipNumber() {
+        int start = pos;
+        if (json.charAt(pos) == '-') pos++;
+        readDigits();
+        if (pos < length && json.charAt(pos) == '.') {
+            pos++;
+            readDigits();
+        }
+        if (pos < length && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < length && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) pos++;
+            readDigits();
+        }
+        return start;
+    }
+
+    private void readDigits() {
+        int start = pos;
+        while (pos < length && isDigit(json.charAt(pos))) pos++;
+        if (pos == start) throw error("Expected a digit");
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumberStart(char c) {
+        return c == '-' || isDigit(c);
+    }
+
+    private void readLiteral(String literal) {
+        if (!json.startsWith(literal, pos)) throw error("Expected '" + literal + "'");
+        pos += literal.length();
+    }
+
+    private void expect(char c) {
+        if (pos >= length || json.charAt(pos) != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,425 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.JsonParseException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled path query, like {@code $.user.id}, {@code $.items[*].price} or {@code $['first name'][0]},
+ * selecting values of a document without parsing the rest of it. The input is scanned once, the values off the path
+ * are skipped by counting brackets and quotes, and only the selected values are turned into {@link JSON} nodes.
+ * A path without wildcards selects at most one value, and the scan stops as soon as it is found.
+ */
+public final class JsonPath {
+    private final String path;
+    private final Step[] steps;
+    private final boolean definite;
+
+    private JsonPath(String path, Step[] steps) {
+        this.path = path;
+        this.steps = steps;
+        this.definite = Arrays.stream(steps).noneMatch(step -> step.wildcard);
+    }
+
+    /**
+     * Compiles a path made of a leading {@code $} followed by property names as {@code .name} or {@code ['name']},
+     * array indexes as {@code [0]}, and wildcards as {@code .*} or {@code [*]}.
+     */
+    public static JsonPath compile(String path) {
+        return new PathCompiler(path).compile();
+    }
+
+    /**
+     * Selects a property of the top-level object, whatever chars its name holds.
+     */
+    static JsonPath property(String name) {
+        return new JsonPath("$['" + name + "']", new Step[]{Step.name(name)});
+    }
+
+    /**
+     * Returns the selected values in document order, an empty list if there are none.
+     */
+    public List<JSON> extract(String json) {
+        return new StringScanner(json).extract();
+    }
+
+    public List<JSON> extract(byte[] json) {
+        return extract(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Selects from the UTF-8 encoded bytes between the position and the limit of the buffer, leaving the position unchanged.
+     */
+    public List<JSON> extract(ByteBuffer json) {
+        return new Utf8Scanner(json).extract();
+    }
+
+    /**
+     * Returns the selected values converted to the given class, like {@link JSON#convert(Class)}.
+     */
+    public <T> List<T> extract(String json, Class<T> clazz) {
+        return extract(json).stream().map(value -> value.convert(clazz)).toList();
+    }
+
+    public <T> List<T> extract(byte[] json, Class<T> clazz) {
+        return extract(json).stream().map(value -> value.convert(clazz)).toList();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    Step[] steps() {
+        return steps;
+    }
+
+    boolean isDefinite() {
+        return definite;
+    }
+
+    static final class Step {
+        final String name;
+        final byte[] nameBytes;
+        final int index;
+        final boolean wildcard;
+
+        private Step(String name, int index, boolean wildcard) {
+            this.name = name;
+            this.nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            this.index = index;
+            this.wildcard = wildcard;
+        }
+
+        static Step name(String name) {
+            return new Step(name, -1, false);
+        }
+
+        static Step index(int index) {
+            return new Step(null, index, false);
+        }
+
+        static Step wildcard() {
+            return new Step(null, -1, true);
+        }
+    }
+
+    private static final class PathCompiler {
+        private final String path;
+        private int pos;
+
+        PathCompiler(String path) {
+            this.path = path;
+        }
+
+        JsonPath compile() {
+            if (!path.startsWith("$")) throw error("Expected '$'");
+            pos = 1;
+            List<Step> steps = new ArrayList<>();
+            while (pos < path.length()) {
+                char c = path.charAt(pos++);
+                if (c == '.') steps.add(dotStep());
+                else if (c == '[') steps.add(bracketStep());
+                else throw error("Expected '.' or '['");
+            }
+            return new JsonPath(path, steps.toArray(Step[]::new));
+        }
+
+        private Step dotStep() {
+            int start = pos;
+            while (pos < path.length() && path.charAt(pos) != '.' && path.charAt(pos) != '[') pos++;
+            if (pos == start) throw error("Expected a property name");
+            String name = path.substring(start, pos);
+            return name.equals("*") ? Step.wildcard() : Step.name(name);
+        }
+
+        /**
+         * Reads a quoted name up to its closing quote, so it may hold any other char, brackets included.
+         */
+        private Step bracketStep() {
+            char quote = pos < path.length() ? path.charAt(pos) : 0;
+            if (quote == '\'' || quote == '"') {
+                int close = path.indexOf(quote, pos + 1);
+                if (close < 0) throw error("Expected a closing quote");
+                String name = path.substring(pos + 1, close);
+                pos = close + 1;
+                if (pos == path.length() || path.charAt(pos) != ']') throw error("Expected ']'");
+                pos++;
+                return Step.name(name);
+            }
+            int end = path.indexOf(']', pos);
+            if (end < 0) throw error("Expected ']'");
+            String content = path.substring(pos, end);
+            Step step;
+            if (content.equals("*")) {
+                step = Step.wildcard();
+            } else {
+                try {
+                    step = Step.index(Integer.parseUnsignedInt(content));
+                } catch (NumberFormatException e) {
+                    throw error("Expected an index, a quoted name or '*'");
+                }
+            }
+            pos = end + 1;
+            return step;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " of JSON path: " + path);
+        }
+    }
+
+    /**
+     * Walks the document along the steps of the path. Reading past the end gives -1, so the structure
+     * is checked by the same comparisons that check the characters.
+     */
+    private abstract class Scanner {
+        final int limit;
+        int pos;
+        private final List<JSON> values = new ArrayList<>();
+
+        Scanner(int start, int limit) {
+            this.pos = start;
+            this.limit = limit;
+        }
+
+        abstract int at(int offset);
+
+        /**
+         * Moves the cursor from the opening quote of a string past its closing quote.
+         */
+        abstract void skipString();
+
+        /**
+         * Compares the raw key between the offsets with the name of the step, decoding it first if it has escapes.
+         */
+        abstract boolean matches(int start, int end, Step step);
+
+        abstract JSON parse(int start, int end);
+
+        abstract JsonParseException error(String message);
+
+        String unescaped(String key) {
+            if (key == null) throw error("Invalid escape sequence");
+            return key;
+        }
+
+        List<JSON> extract() {
+            skipWhitespace();
+            walk(0);
+            return values;
+        }
+
+        /**
+         * Follows the path from the given step on the value at the cursor, leaving the cursor after the value.
+         * Returns true when the path is definite and its value is found, so the scan can stop.
+         */
+        private boolean walk(int step) {
+            if (step == steps.length) {
+                int start = pos;
+                skipValue();
+                values.add(parse(start, pos));
+                return definite;
+            }
+            return switch (at(pos)) {
+                case '{' -> walkObject(steps[step], step + 1);
+                case '[' -> walkArray(steps[step], step + 1);
+                default -> {
+                    skipValue();
+                    yield false;
+                }
+            };
+        }
+
+        private boolean walkObject(Step step, int next) {
+            pos++;
+            skipWhitespace();
+            if (at(pos) == '}') {
+                pos++;
+                return false;
+            }
+            while (true) {
+                skipWhitespace();
+                if (at(pos) != '"') throw error("Expected a property name");
+                int keyStart = pos + 1;
+                skipString();
+                int keyEnd = pos - 1;
+                skipWhitespace();
+                if (at(pos) != ':') throw error("Expected ':'");
+                pos++;
+                skipWhitespace();
+                if (step.wildcard || step.name != null && matches(keyStart, keyEnd, step)) {
+                    if (walk(next)) return true;
+                } else {
+                    skipValue();
+                }
+                if (endOfContainer('}')) return false;
+            }
+        }
+
+        private boolean walkArray(Step step, int next) {
+            pos++;
+            skipWhitespace();
+            if (at(pos) == ']') {
+                pos++;
+                return false;
+            }
+            for (int index = 0; ; index++) {
+                skipWhitespace();
+                if (step.wildcard || step.index == index) {
+                    if (walk(next)) return true;
+                } else {
+                    skipValue();
+                }
+                if (endOfContainer(']')) return false;
+            }
+        }
+
+        private boolean endOfContainer(char close) {
+            skipWhitespace();
+            int c = at(pos++);
+            if (c == close) return true;
+            if (c != ',') throw error("Expected ',' or '" + close + "'");
+            return false;
+        }
+
+        /**
+         * Skips the value at the cursor, a nested object or array by counting brackets outside of strings.
+         */
+        private void skipValue() {
+            skipWhitespace();
+            int c = at(pos);
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                do {
+                    c = at(pos);
+                    switch (c) {
+                        case '"' -> {
+                            skipString();
+                            continue;
+                        }
+                        case '{', '[' -> depth++;
+                        case '}', ']' -> depth--;
+                        case -1 -> throw error("Unexpected end of input");
+                        default -> {
+                        }
+                    }
+                    pos++;
+                } while (depth > 0);
+            } else {
+                int start = pos;
+                while (c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c)) c = at(++pos);
+                if (pos == start) throw error(c == -1 ? "Unexpected end of input" : "Unexpected character '" + (char) c + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (isWhitespace(at(pos))) pos++;
+        }
+
+        private static boolean isWhitespace(int c) {
+            return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+        }
+    }
+
+    private final class StringScanner extends Scanner {
+        private final String json;
+        private final JsonParser parser = new JsonParser();
+
+        StringScanner(String json) {
+            super(0, json.length());
+            this.json = json;
+        }
+
+        @Override
+        int at(int offset) {
+            return offset < limit ? json.charAt(offset) : -1;
+        }
+
+        @Override
+        void skipString() {
+            int i = pos + 1;
+            while (true) {
+                int quote = json.indexOf('"', i);
+                if (quote < 0) throw error("Unterminated string");
+                int backslashes = 0;
+                while (json.charAt(quote - 1 - backslashes) == '\\') backslashes++;
+                i = quote + 1;
+                if (backslashes % 2 == 0) break;
+            }
+            pos = i;
+        }
+
+        @Override
+        boolean matches(int start, int end, Step step) {
+            for (int i = start; i < end; i++) {
+                if (json.charAt(i) == '\\') return step.name.equals(unescaped(JsonStrings.unescape(json, start, end)));
+            }
+            return end - start == step.name.length() && json.regionMatches(start, step.name, 0, end - start);
+        }
+
+        @Override
+        JSON parse(int start, int end) {
+            return parser.parse(json, start, end);
+        }
+
+        @Override
+        JsonParseException error(String message) {
+            return new JsonParseException(message + " at position " + pos);
+        }
+    }
+
+    private final class Utf8Scanner extends Scanner {
+        private final ByteBuffer json;
+        private final Utf8JsonParser parser = new Utf8JsonParser();
+
+        Utf8Scanner(ByteBuffer json) {
+            super(json.position(), json.limit());
+            this.json = json;
+        }
+
+        @Override
+        int at(int offset) {
+            return offset < limit ? json.get(offset) : -1;
+        }
+
+        @Override
+        void skipString() {
+            int i = pos + 1;
+            while (true) {
+                if (i >= limit) throw error("Unterminated string");
+                byte c = json.get(i);
+                if (c == '"') break;
+                i += c == '\\' ? 2 : 1;
+            }
+            pos = i + 1;
+        }
+
+        @Override
+        boolean matches(int start, int end, Step step) {
+            if (JsonStrings.scan(json, start, end) < end) {
+                return step.name.equals(unescaped(JsonStrings.unescape(json, start, end)));
+            }
+            byte[] name = step.nameBytes;
+            if (end - start != name.length) return false;
+            for (int i = 0; i < name.length; i++) if (json.get(start + i) != name[i]) return false;
+            return true;
+        }
+
+        @Override
+        JSON parse(int start, int end) {
+            return parser.parse(json, start, end);
+        }
+
+        @Override
+        JsonParseException error(String message) {
+            return new JsonParseException(message + " at byte offset " + (pos - json.position()));
+        }
+    }
+}
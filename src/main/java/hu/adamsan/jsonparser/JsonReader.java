@@ -0,0 +1,433 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pull parser reading a JSON document token by token from a {@link Reader} through a fixed size buffer,
+ * so arbitrarily large documents can be processed without holding them in memory.
+ * Sub-trees can be materialized as {@link JSON} nodes with {@link #readTree()} when needed.
+ */
+public class JsonReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private char[] buffer;
+    private int pos;
+    private int limit;
+    private long bufferOffset;
+
+    private int[] stack = new int[32];
+    private int depth;
+    private JsonToken peeked;
+    private final StringBuilder scratch = new StringBuilder();
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        this.buffer = new char[BUFFER_SIZE];
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Reads a document already in memory, using its chars as the buffer, so it is never refilled.
+     */
+    JsonReader(char[] json, int length) {
+        this.in = Reader.nullReader();
+        this.buffer = json;
+        this.limit = length;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Starts over on another document in memory, so a reader of small documents can be reused for each of them.
+     */
+    void reset(char[] json, int length) {
+        buffer = json;
+        pos = 0;
+        limit = length;
+        bufferOffset = 0;
+        depth = 0;
+        stack[depth++] = EMPTY_DOCUMENT;
+        peeked = null;
+    }
+
+    public JsonToken peek() {
+        if (peeked == null) peeked = doPeek();
+        return peeked;
+    }
+
+    public boolean hasNext() {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    public void beginArray() {
+        consume(JsonToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        consume(JsonToken.END_ARRAY);
+        depth--;
+    }
+
+    public void beginObject() {
+        consume(JsonToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        consume(JsonToken.END_OBJECT);
+        depth--;
+    }
+
+    public String nextName() {
+        return nextSymbol(JsonToken.NAME, SymbolTable.KEYS).value;
+    }
+
+    public String nextString() {
+        consume(JsonToken.STRING);
+        return readString(true);
+    }
+
+    /**
+     * Returns the literal text of the next number, so callers can choose how to interpret it.
+     */
+    public String nextNumber() {
+        consume(JsonToken.NUMBER);
+        return readNumber(true);
+    }
+
+    public long nextLong() {
+        return Long.parseLong(nextNumber());
+    }
+
+    public double nextDouble() {
+        return Double.parseDouble(nextNumber());
+    }
+
+    public boolean nextBoolean() {
+        consume(JsonToken.BOOLEAN);
+        if (peekChar() == 't') {
+            readLiteral("true");
+            return true;
+        }
+        readLiteral("false");
+        return false;
+    }
+
+    public void nextNull() {
+        consume(JsonToken.NULL);
+        readLiteral("null");
+    }
+
+    /**
+     * Skips the next value, including all of its nested content, without building strings or nodes.
+     */
+    public void skipValue() {
+        int count = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY -> {
+                    beginArray();
+                    count++;
+                }
+                case BEGIN_OBJECT -> {
+                    beginObject();
+                    count++;
+                }
+                case END_ARRAY -> {
+                    endArray();
+                    count--;
+                }
+                case END_OBJECT -> {
+                    endObject();
+                    count--;
+                }
+                case NAME, STRING -> {
+                    peeked = null;
+                    readString(false);
+                }
+                case NUMBER -> {
+                    peeked = null;
+                    readNumber(false);
+                }
+                case BOOLEAN -> nextBoolean();
+                case NULL -> nextNull();
+                case END_DOCUMENT -> throw error("Unexpected end of input");
+            }
+        } while (count > 0);
+    }
+
+    /**
+     * Reads the next value with all of its nested content into a {@link JSON} node.
+     */
+    public JSON readTree() {
+        return switch (peek()) {
+            case BEGIN_OBJECT -> {
+                beginObject();
+                JSONObject object = new JSONObject();
+                while (hasNext()) object.put(nextSymbol(JsonToken.NAME, SymbolTable.KEYS), readTree());
+                endObject();
+                yield object;
+            }
+            case BEGIN_ARRAY -> {
+                beginArray();
+                JSONArray.Builder numbers = new JSONArray.Builder();
+                List<JSON> items = null;
+                while (hasNext()) {
+                    if (items == null && peek() == JsonToken.NUMBER) {
+                        JSONNumber number = new JSONNumber(nextNumber());
+                        if (!numbers.add(number)) {
+                            items = numbers.toItems();
+                            items.add(number);
+                        }
+                    } else {
+                        if (items == null) items = numbers.toItems();
+                        items.add(readTree());
+                    }
+                }
+                endArray();
+                yield items == null ? numbers.build() : new JSONArray(items);
+            }
+            case STRING -> nextSymbol(JsonToken.STRING, SymbolTable.VALUES);
+            case NUMBER -> new JSONNumber(nextNumber());
+            case BOOLEAN -> new JSONBoolean(nextBoolean());
+            case NULL -> {
+                nextNull();
+                yield new JSONNull();
+            }
+            default -> throw error("Expected a value but was " + peek());
+        };
+    }
+
+    @Override
+    public void close() {
+        try {
+            in.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonToken doPeek() {
+        int scope = stack[depth - 1];
+        switch (scope) {
+            case EMPTY_ARRAY -> stack[depth - 1] = NONEMPTY_ARRAY;
+            case NONEMPTY_ARRAY -> {
+                int c = nextNonWhitespace();
+                if (c == ']') {
+                    pos++;
+                    return JsonToken.END_ARRAY;
+                }
+                if (c != ',') throw error("Expected ',' or ']'");
+                pos++;
+            }
+            case EMPTY_OBJECT, NONEMPTY_OBJECT -> {
+                stack[depth - 1] = DANGLING_NAME;
+                int c = nextNonWhitespace();
+                if (c == '}') {
+                    pos++;
+                    return JsonToken.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') throw error("Expected ',' or '}'");
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw error("Expected a property name");
+                pos++;
+                return JsonToken.NAME;
+            }
+            case DANGLING_NAME -> {
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') throw error("Expected ':'");
+                pos++;
+            }
+            case EMPTY_DOCUMENT -> stack[depth - 1] = NONEMPTY_DOCUMENT;
+            case NONEMPTY_DOCUMENT -> {
+                if (nextNonWhitespace() == -1) return JsonToken.END_DOCUMENT;
+                throw error("Unexpected content after the end of the JSON value");
+            }
+        }
+
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                pos++;
+                return JsonToken.BEGIN_OBJECT;
+            case '[':
+                pos++;
+                return JsonToken.BEGIN_ARRAY;
+            case ']':
+                if (scope != EMPTY_ARRAY) break;
+                pos++;
+                return JsonToken.END_ARRAY;
+            case '"':
+                pos++;
+                return JsonToken.STRING;
+            case 't', 'f':
+                return JsonToken.BOOLEAN;
+            case 'n':
+                return JsonToken.NULL;
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9':
+                return JsonToken.NUMBER;
+            case -1:
+                throw error("Unexpected end of input");
+        }
+        throw error("Unexpected character '" + (char) c + "'");
+    }
+
+    private void consume(JsonToken expected) {
+        JsonToken token = peek();
+        if (token != expected) throw error("Expected " + expected + " but was " + token);
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+
+    /**
+     * Reads a string through the symbol table when it is short, free of escapes and does not span a buffer refill,
+     * so repeated names are neither copied out of the buffer nor allocated again.
+     */
+    private JSONString nextSymbol(JsonToken expected, SymbolTable symbols) {
+        consume(expected);
+        int end = JsonStrings.scan(buffer, pos, limit);
+        if (end < limit && buffer[end] == '"') {
+            int start = pos;
+            pos = end + 1;
+            return symbols.get(buffer, start, end);
+        }
+        return JSONString.of(readString(true));
+    }
+
+    /**
+     * Reads the rest of a string whose opening quote is already consumed, decoding its escape sequences.
+     * The content is copied out of the buffer directly when it has no escapes and does not span a buffer refill.
+     */
+    private String readString(boolean keep) {
+        scratch.setLength(0);
+        while (true) {
+            int start = pos;
+            int end = JsonStrings.scan(buffer, pos, limit);
+            if (end < limit && buffer[end] == '"') {
+                pos = end + 1;
+                if (!keep) return null;
+                if (scratch.length() == 0) return new String(buffer, start, end - start);
+                return scratch.append(buffer, start, end - start).toString();
+            }
+            if (keep) scratch.append(buffer, start, end - start);
+            pos = end;
+            if (end < limit) readEscape(keep);
+            else if (!fill()) throw error("Unterminated string");
+        }
+    }
+
+    /**
+     * Reads the escape sequence at the cursor, which may span a buffer refill.
+     */
+    private void readEscape(boolean keep) {
+        pos++;
+        int c = peekChar();
+        if (c < 0) throw error("Unterminated string");
+        pos++;
+        if (c == 'u') {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = JsonStrings.hexValue(peekChar());
+                if (digit < 0) throw error("Invalid escape sequence");
+                value = value << 4 | digit;
+                pos++;
+            }
+            c = value;
+        } else {
+            c = JsonStrings.escaped(c);
+            if (c < 0) throw error("Invalid escape sequence");
+        }
+        if (keep) scratch.append((char) c);
+    }
+
+    private String readNumber(boolean keep) {
+        scratch.setLength(0);
+        int c = peekChar();
+        if (c == '-') c = appendAndPeek(c, keep);
+        c = readDigits(c, keep);
+        if (c == '.') c = readDigits(appendAndPeek(c, keep), keep);
+        if (c == 'e' || c == 'E') {
+            c = appendAndPeek(c, keep);
+            if (c == '+' || c == '-') c = appendAndPeek(c, keep);
+            readDigits(c, keep);
+        }
+        return keep ? scratch.toString() : null;
+    }
+
+    private int readDigits(int c, boolean keep) {
+        if (!isDigit(c)) throw error("Expected a digit");
+        while (isDigit(c)) c = appendAndPeek(c, keep);
+        return c;
+    }
+
+    private int appendAndPeek(int c, boolean keep) {
+        if (keep) scratch.append((char) c);
+        pos++;
+        return peekChar();
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void readLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (peekChar() != literal.charAt(i)) throw error("Expected '" + literal + "'");
+            pos++;
+        }
+    }
+
+    private int nextNonWhitespace() {
+        while (true) {
+            int c = peekChar();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            pos++;
+        }
+    }
+
+    private int peekChar() {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos];
+    }
+
+    private boolean fill() {
+        bufferOffset += limit;
+        pos = 0;
+        try {
+            limit = Math.max(in.read(buffer, 0, buffer.length), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return limit > 0;
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message + " at position " + (bufferOffset + pos));
+    }
+}
@@ -0,0 +1,366 @@
+package hu.adamsan.jsonparser;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Scanning and decoding of string content shared by the parsers. Most strings have no escape sequences,
+ * so the parsers first look for the first quote or backslash, and take the content as it is when it is a quote.
+ * Control characters are accepted in strings, as they always were.
+ * <p>
+ * UTF-8 input is scanned eight bytes at a time: every byte of a little-endian long is tested at once with the
+ * usual bit tricks, and the lowest flagged byte is the first special one. Bytes of multi-byte sequences all have their
+ * high bit set, so they are never flagged. Strings are scanned by a {@link TextScanner}.
+ */
+final class JsonStrings {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BUFFER_LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long QUOTES = ONES * '"';
+    private static final long BACKSLASHES = ONES * '\\';
+    private static final long SPACES = ONES * ' ';
+
+    private JsonStrings() {
+    }
+
+    /**
+     * Returns the offset of the first quote or backslash between the offsets, or the end offset.
+     */
+    static int scan(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c == '"' || c == '\\') return i;
+        }
+        return to;
+    }
+
+    static int scan(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES) {
+            long flags = special((long) LONGS.get(bytes, i));
+            if (flags != 0) return i + (Long.numberOfTrailingZeros(flags) >>> 3);
+        }
+        for (; i < to; i++) if (isSpecial(bytes[i])) return i;
+        return to;
+    }
+
+    /**
+     * Scans the backing array of heap buffers, and direct buffers through a long view of the buffer.
+     */
+    static int scan(ByteBuffer bytes, int from, int to) {
+        if (bytes.hasArray()) {
+            int offset = bytes.arrayOffset();
+            return scan(bytes.array(), offset + from, offset + to) - offset;
+        }
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES) {
+            long flags = special((long) BUFFER_LONGS.get(bytes, i));
+            if (flags != 0) return i + (Long.numberOfTrailingZeros(flags) >>> 3);
+        }
+        for (; i < to; i++) if (isSpecial(bytes.get(i))) return i;
+        return to;
+    }
+
+    /**
+     * Sets the high bit of the quote and backslash bytes of the word. A byte is zero after the xor if it matched,
+     * and subtracting one from it borrows into its high bit; only the lowest flag is exact,
+     * a borrow may flag the byte above a match as well.
+     */
+    private static long special(long word) {
+        long quotes = word ^ QUOTES;
+        long backslashes = word ^ BACKSLASHES;
+        return ((quotes - ONES) & ~quotes | (backslashes - ONES) & ~backslashes) & HIGH_BITS;
+    }
+
+    private static boolean isSpecial(byte c) {
+        return c == '"' || c == '\\';
+    }
+
+    /**
+     * Returns the offset of the first byte that is not plain ASCII string content between the offsets: a quote,
+     * a backslash, a control character or a byte of a multi-byte sequence, or the end offset.
+     * Control characters are flagged like the quotes, by the borrow of subtracting a space from every byte.
+     */
+    static int plainEnd(byte[] bytes, int from, int to) {
+        int i = from;
+        for (; i <= to - Long.BYTES; i += Long.BYTES) {
+            long word = (long) LONGS.get(bytes, i);
+            long flags = special(word) | ((word - SPACES) & ~word | word) & HIGH_BITS;
+            if (flags != 0) return i + (Long.numberOfTrailingZeros(flags) >>> 3);
+        }
+        for (; i < to; i++) {
+            byte c = bytes[i];
+            if (c < ' ' || isSpecial(c)) return i;
+        }
+        return to;
+    }
+
+    /**
+     * Returns the offset of the quote closing a string, given the offset of its first special char.
+     * Escape sequences are checked and skipped on the way. Returns the offset of the backslash of an invalid
+     * escape sequence, or the end offset if the string is unterminated.
+     */
+    static int stringEnd(ByteBuffer bytes, int special, int to) {
+        int i = special;
+        while (i < to && bytes.get(i) == '\\') {
+            int next = skipEscape(bytes, i, to);
+            if (next < 0) return i;
+            i = scan(bytes, next, to);
+        }
+        return i;
+    }
+
+    /**
+     * Returns the offset after the escape sequence starting with the backslash at the given offset,
+     * the end offset if it is cut short, or -1 if it is invalid.
+     */
+    private static int skipEscape(String s, int backslash, int to) {
+        if (backslash + 1 >= to) return to;
+        char c = s.charAt(backslash + 1);
+        if (c != 'u') return escaped(c) < 0 ? -1 : backslash + 2;
+        for (int i = backslash + 2; i < backslash + 6; i++) {
+            if (i >= to) return to;
+            if (hexValue(s.charAt(i)) < 0) return -1;
+        }
+        return backslash + 6;
+    }
+
+    private static int skipEscape(ByteBuffer bytes, int backslash, int to) {
+        if (backslash + 1 >= to) return to;
+        byte c = bytes.get(backslash + 1);
+        if (c != 'u') return escaped(c) < 0 ? -1 : backslash + 2;
+        for (int i = backslash + 2; i < backslash + 6; i++) {
+            if (i >= to) return to;
+            if (hexValue(bytes.get(i)) < 0) return -1;
+        }
+        return backslash + 6;
+    }
+
+    /**
+     * Decodes the content of a string with escape sequences, or returns null if one of them is invalid.
+     * Every {@code \}{@code uXXXX} gives one char, so an escaped surrogate pair gives the two halves of the code point.
+     */
+    static String unescape(CharSequence s, int from, int to) {
+        StringBuilder text = new StringBuilder(to - from);
+        int run = from;
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) != '\\') continue;
+            text.append(s, run, i);
+            int value = escapeValue(s, i, to);
+            if (value < 0) return null;
+            text.append((char) value);
+            run = i + escapeLength(s, i);
+            i = run - 1;
+        }
+        return text.append(s, run, to).toString();
+    }
+
+    /**
+     * Returns the char the escape sequence starting with the backslash at the given offset stands for,
+     * or -1 if it is invalid or cut short.
+     */
+    private static int escapeValue(CharSequence s, int backslash, int to) {
+        if (backslash + 1 >= to) return -1;
+        char c = s.charAt(backslash + 1);
+        if (c != 'u') return escaped(c);
+        if (backslash + 6 > to) return -1;
+        int value = 0;
+        for (int i = backslash + 2; i < backslash + 6; i++) {
+            int digit = hexValue(s.charAt(i));
+            if (digit < 0) return -1;
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the length of the valid escape sequence starting with the backslash at the given offset.
+     */
+    private static int escapeLength(CharSequence s, int backslash) {
+        return s.charAt(backslash + 1) == 'u' ? 6 : 2;
+    }
+
+    /**
+     * Decodes UTF-8 encoded content with escape sequences, the runs between them are decoded in one go.
+     */
+    static String unescape(ByteBuffer bytes, int from, int to) {
+        StringBuilder text = new StringBuilder(to - from);
+        int run = from;
+        for (int i = from; i < to; i++) {
+            if (bytes.get(i) != '\\') continue;
+            text.append(decode(bytes, run, i));
+            if (++i >= to) return null;
+            byte c = bytes.get(i);
+            if (c == 'u') {
+                if (i + 4 >= to) return null;
+                int value = 0;
+                for (int end = i + 4; i < end; ) {
+                    int digit = hexValue(bytes.get(++i));
+                    if (digit < 0) return null;
+                    value = value << 4 | digit;
+                }
+                text.append((char) value);
+            } else {
+                int value = escaped(c);
+                if (value < 0) return null;
+                text.append((char) value);
+            }
+            run = i + 1;
+        }
+        return text.append(decode(bytes, run, to)).toString();
+    }
+
+    private static String decode(ByteBuffer bytes, int from, int to) {
+        if (bytes.hasArray()) return new String(bytes.array(), bytes.arrayOffset() + from, to - from, UTF_8);
+        byte[] copy = new byte[to - from];
+        bytes.get(from, copy);
+        return new String(copy, UTF_8);
+    }
+
+    /**
+     * Returns the char an escape sequence with the given letter stands for, or -1 if there is no such sequence.
+     * The letter u of the hexadecimal escape is not handled here.
+     */
+    static int escaped(int c) {
+        return switch (c) {
+            case '"', '\\', '/' -> c;
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            default -> -1;
+        };
+    }
+
+    static int hexValue(int c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * Scans the strings of one text with {@link String#indexOf(int, int)}, which the JIT compiles to vector instructions;
+     * the eight byte scanning above is only for UTF-8 input. The lazy tape scans every string with it,
+     * {@link JsonParser} only the strings with escapes.
+     * The offset of the next backslash is kept, also while parsing further ranges of the same text,
+     * so a text without escapes is searched for one only once while the scans move forward.
+     * A backslash found past the end of the range counts as none.
+     */
+    static final class TextScanner {
+        private static final int MAX_RETAINED_CHARS = 1024;
+
+        private String text;
+        /**
+         * There is no backslash from the searched offset up to the backslash offset.
+         */
+        private int searched;
+        private int backslash;
+        private int end;
+        private char[] chars = new char[0];
+
+        /**
+         * Starts scanning the text, keeping what is known about its backslashes if it is the text scanned before.
+         */
+        void reset(String text) {
+            if (text == null && chars.length > MAX_RETAINED_CHARS) chars = new char[MAX_RETAINED_CHARS];
+            if (text == this.text) return;
+            this.text = text;
+            this.searched = Integer.MAX_VALUE;
+        }
+
+        /**
+         * Like {@link JsonStrings#scan(byte[], int, int)}, for the chars of the text.
+         */
+        int scan(int from, int to) {
+            return Math.min(quote(from, to), backslash(from, to));
+        }
+
+        /**
+         * Like {@link JsonStrings#stringEnd(ByteBuffer, int, int)}, for the chars of the text.
+         * The closing quote is searched for again only when an escape sequence took the one found before.
+         */
+        int stringEnd(int special, int to) {
+            int i = special;
+            int quote = -1;
+            while (i < to && text.charAt(i) == '\\') {
+                int next = skipEscape(text, i, to);
+                if (next < 0) return i;
+                if (quote < next) quote = quote(next, to);
+                i = Math.min(quote, backslash(next, to));
+            }
+            return i;
+        }
+
+        /**
+         * Decodes a string with escape sequences in one pass, given the offset of its content and of its first
+         * backslash: the runs between the escape sequences are found with the kept backslash offset and copied in one go.
+         * Returns null if the string is unterminated or an escape sequence is invalid; {@link #end()} tells the offset
+         * of the closing quote, or of the backslash of the invalid sequence, or the end offset.
+         */
+        String decode(int start, int backslash, int to) {
+            int quote = quote(backslash, to);
+            char[] chars = chars(quote - start);
+            int length = 0;
+            int run = start;
+            int i = backslash;
+            while (i < to && text.charAt(i) == '\\') {
+                text.getChars(run, i, chars, length);
+                length += i - run;
+                int value = escapeValue(text, i, to);
+                if (value < 0) {
+                    end = skipEscape(text, i, to) < 0 ? i : to;
+                    return null;
+                }
+                chars[length++] = (char) value;
+                run = i + escapeLength(text, i);
+                if (quote < run) {
+                    quote = quote(run, to);
+                    chars = chars(quote - start);
+                }
+                i = Math.min(quote, backslash(run, to));
+            }
+            end = i;
+            if (i >= to) return null;
+            text.getChars(run, i, chars, length);
+            return new String(chars, 0, length + i - run);
+        }
+
+        /**
+         * Returns the scratch buffer decoded strings are collected in, with room for the given number of chars,
+         * keeping the ones collected so far.
+         */
+        private char[] chars(int capacity) {
+            if (chars.length < capacity) chars = Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+            return chars;
+        }
+
+        /**
+         * Returns where the last {@link #decode(int, int, int)} stopped.
+         */
+        int end() {
+            return end;
+        }
+
+        private int quote(int from, int to) {
+            int quote = text.indexOf('"', from);
+            return quote < 0 || quote > to ? to : quote;
+        }
+
+        private int backslash(int from, int to) {
+            if (from < searched || backslash < from) {
+                searched = from;
+                backslash = text.indexOf('\\', from);
+                if (backslash < 0) backslash = Integer.MAX_VALUE;
+            }
+            return Math.min(backslash, to);
+        }
+    }
+}
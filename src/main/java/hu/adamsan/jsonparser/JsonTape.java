@@ -0,0 +1,253 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Result of a single structural pass over a JSON text: every value and property name gets an entry
+ * in a flat int array, holding its start offset, its end offset and the index of the next sibling entry.
+ * The children of a container entry are the entries between it and its next sibling, property names and values
+ * alternating for objects. Nodes are created from the tape only when they are asked for,
+ * containers are returned as lazy {@link JSONObject}s and {@link JSONArray}s backed by the same tape.
+ * The end offset of a string with escape sequences is stored complemented, so strings without them are created
+ * without looking at their content again.
+ */
+final class JsonTape {
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int NEXT = 2;
+    private static final int ENTRY_SIZE = 3;
+
+    private final String json;
+    private final int length;
+    private JsonStrings.TextScanner strings = new JsonStrings.TextScanner();
+    private int[] tape = new int[ENTRY_SIZE * 64];
+    private int entries;
+    private int pos;
+
+    private JsonTape(String json) {
+        this.json = json;
+        this.length = json.length();
+        strings.reset(json);
+    }
+
+    static JSON parse(String json) {
+        JsonTape tape = new JsonTape(json);
+        tape.readValue();
+        tape.skipWhitespace();
+        if (tape.pos < tape.length) throw tape.error("Unexpected content after the end of the JSON value");
+        tape.tape = Arrays.copyOf(tape.tape, tape.entries * ENTRY_SIZE);
+        tape.strings = null;
+        return tape.node(0);
+    }
+
+    JSON node(int entry) {
+        int start = tape[entry * ENTRY_SIZE + START];
+        int end = tape[entry * ENTRY_SIZE + END];
+        return switch (json.charAt(start)) {
+            case '"' -> string(SymbolTable.VALUES, entry);
+            case '{' -> new JSONObject(this, entry);
+            case '[' -> new JSONArray(this, entry);
+            case 't' -> new JSONBoolean(true);
+            case 'f' -> new JSONBoolean(false);
+            case 'n' -> new JSONNull();
+            default -> new JSONNumber(json, start, end);
+        };
+    }
+
+    JSONString key(int entry) {
+        return string(SymbolTable.KEYS, entry);
+    }
+
+    private JSONString string(SymbolTable symbols, int entry) {
+        int start = tape[entry * ENTRY_SIZE + START] + 1;
+        int end = tape[entry * ENTRY_SIZE + END];
+        if (end >= 0) return symbols.get(json, start, end - 1);
+        return symbols.get(JsonStrings.unescape(json, start, ~end - 1));
+    }
+
+    int firstChild(int entry) {
+        return entry + 1;
+    }
+
+    int next(int entry) {
+        return tape[entry * ENTRY_SIZE + NEXT];
+    }
+
+    int childCount(int entry) {
+        int count = 0;
+        for (int child = firstChild(entry); child < next(entry); child = next(child)) count++;
+        return count;
+    }
+
+    /**
+     * Returns the entries of the items of the array entry, in order.
+     */
+    int[] children(int entry) {
+        int[] children = new int[childCount(entry)];
+        int i = 0;
+        for (int child = firstChild(entry); child < next(entry); child = next(child)) children[i++] = child;
+        return children;
+    }
+
+    /**
+     * Returns the entry of the value stored under the given name in the object entry, or -1. For a name given
+     * more than once the last value is returned, like the materialized object keeps it.
+     * Names are compared in place, without creating strings for the ones that do not match, unless they have escapes.
+     */
+    int find(int objectEntry, String name) {
+        int found = -1;
+        for (int key = firstChild(objectEntry); key < next(objectEntry); key = next(key + 1)) {
+            int start = tape[key * ENTRY_SIZE + START] + 1;
+            int end = tape[key * ENTRY_SIZE + END];
+            if (end < 0) {
+                if (JsonStrings.unescape(json, start, ~end - 1).equals(name)) found = key + 1;
+            } else if (end - 1 - start == name.length() && json.regionMatches(start, name, 0, name.length())) {
+                found = key + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of distinct names in the object entry.
+     */
+    int propertyCount(int objectEntry) {
+        Set<JSONString> names = new HashSet<>();
+        for (int key = firstChild(objectEntry); key < next(objectEntry); key = next(key + 1)) names.add(key(key));
+        return names.size();
+    }
+
+    private void readValue() {
+        skipWhitespace();
+        if (pos >= length) throw error("Unexpected end of input");
+        int entry = add();
+        boolean escaped = false;
+        switch (json.charAt(pos)) {
+            case '"' -> escaped = skipString();
+            case '{' -> readObject();
+            case '[' -> readArray();
+            case 'n' -> skipLiteral("null");
+            case 't' -> skipLiteral("true");
+            case 'f' -> skipLiteral("false");
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> skipNumber();
+            default -> throw error("Unexpected character '" + json.charAt(pos) + "'");
+        }
+        close(entry, escaped);
+    }
+
+    private void readObject() {
+        pos++;
+        skipWhitespace();
+        if (pos < length && json.charAt(pos) == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            if (pos >= length || json.charAt(pos) != '"') throw error("Expected a property name");
+            int key = add();
+            close(key, skipString());
+            skipWhitespace();
+            expect(':');
+            readValue();
+            skipWhitespace();
+            if (pos >= length) throw error("Unterminated object");
+            char c = json.charAt(pos);
+            if (c != ',' && c != '}') throw error("Expected ',' or '}' but found '" + c + "'");
+            pos++;
+            if (c == '}') return;
+        }
+    }
+
+    private void readArray() {
+        pos++;
+        skipWhitespace();
+        if (pos < length && json.charAt(pos) == ']') {
+            pos++;
+            return;
+        }
+        while (true) {
+            readValue();
+            skipWhitespace();
+            if (pos >= length) throw error("Unterminated array");
+            char c = json.charAt(pos);
+            if (c != ',' && c != ']') throw error("Expected ',' or ']' but found '" + c + "'");
+            pos++;
+            if (c == ']') return;
+        }
+    }
+
+    private int add() {
+        if ((entries + 1) * ENTRY_SIZE > tape.length) tape = Arrays.copyOf(tape, tape.length * 2);
+        tape[entries * ENTRY_SIZE + START] = pos;
+        return entries++;
+    }
+
+    private void close(int entry, boolean escaped) {
+        tape[entry * ENTRY_SIZE + END] = escaped ? ~pos : pos;
+        tape[entry * ENTRY_SIZE + NEXT] = entries;
+    }
+
+    /**
+     * Returns whether the string has escape sequences.
+     */
+    private boolean skipString() {
+        int start = pos + 1;
+        int end = strings.scan(start, length);
+        boolean escaped = end < length && json.charAt(end) == '\\';
+        if (escaped) end = strings.stringEnd(end, length);
+        if (end >= length) throw error("Unterminated string");
+        if (json.charAt(end) != '"') {
+            pos = end;
+            throw error("Invalid escape sequence");
+        }
+        pos = end + 1;
+        return escaped;
+    }
+
+    private void skipNumber() {
+        if (json.charAt(pos) == '-') pos++;
+        skipDigits();
+        if (pos < length && json.charAt(pos) == '.') {
+            pos++;
+            skipDigits();
+        }
+        if (pos < length && (json.charAt(pos) == 'e' || json.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < length && (json.charAt(pos) == '+' || json.charAt(pos) == '-')) pos++;
+            skipDigits();
+        }
+    }
+
+    private void skipDigits() {
+        int start = pos;
+        while (pos < length && json.charAt(pos) >= '0' && json.charAt(pos) <= '9') pos++;
+        if (pos == start) throw error("Expected a digit");
+    }
+
+    private void skipLiteral(String literal) {
+        if (!json.startsWith(literal, pos)) throw error("Expected '" + literal + "'");
+        pos += literal.length();
+    }
+
+    private void expect(char c) {
+        if (pos >= length || json.charAt(pos) != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,21 @@
+package hu.adamsan.jsonparser;
+
+/**
+ * The kinds of tokens a {@link JsonReader} or a {@link JsonFeeder} can report.
+ */
+public enum JsonToken {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT,
+    /**
+     * Only reported by a {@link JsonFeeder}, when the input fed so far ends before the next token does.
+     */
+    NEED_MORE_INPUT
+}
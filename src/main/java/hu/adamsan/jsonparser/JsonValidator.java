@@ -0,0 +1,385 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.JsonParseException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Checks that the input is a single JSON value exactly as RFC 8259 defines it, without creating any nodes.
+ * Stricter than the parsers: numbers with leading zeros, unescaped control characters in strings and malformed UTF-8
+ * are rejected too. The first problem throws a {@link JsonParseException} with its position, in chars for strings
+ * and in bytes otherwise, as do the first byte beyond one of the {@link JsonLimits}.
+ * <p>
+ * The input is read into a fixed buffer, byte arrays are read in place, and nesting is kept in a bit set instead of
+ * on the call stack, so memory use does not depend on the input and any depth can be allowed. Chars of strings are
+ * copied into the buffer as bytes: the ASCII ones as they are, the others as a DEL, which is valid string content only,
+ * and the halves of unpaired surrogates as an invalid UTF-8 byte. Strings are scanned eight bytes at a time.
+ */
+final class JsonValidator {
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte OTHER_CHAR = 0x7F;
+    private static final byte UNPAIRED_SURROGATE = (byte) 0x80;
+    private static final int[] BYTE_ORDER_MARK = {0xEF, 0xBB, 0xBF};
+
+    private final JsonLimits limits;
+    private final String text;
+    private final InputStream in;
+    private byte[] buffer;
+    private int pos;
+    private int limit;
+    private long offset;
+    private boolean more;
+    private String pendingError;
+    private long[] containers = new long[1];
+    private int depth;
+
+    private JsonValidator(JsonLimits limits, String text, InputStream in) {
+        this.limits = limits;
+        this.text = text;
+        this.in = in;
+    }
+
+    static void validate(String json, JsonLimits limits) {
+        JsonValidator validator = new JsonValidator(limits, json, null);
+        validator.buffer = new byte[BUFFER_SIZE];
+        validator.more = true;
+        validator.validate();
+    }
+
+    static void validate(byte[] json, JsonLimits limits) {
+        JsonValidator validator = new JsonValidator(limits, null, null);
+        validator.buffer = json;
+        validator.limit = json.length;
+        validator.truncate();
+        validator.skipByteOrderMark();
+        validator.validate();
+    }
+
+    static void validate(InputStream json, JsonLimits limits) {
+        JsonValidator validator = new JsonValidator(limits, null, json);
+        validator.buffer = new byte[BUFFER_SIZE];
+        validator.more = true;
+        validator.skipByteOrderMark();
+        validator.validate();
+    }
+
+    /**
+     * Reads one value after the other: opening a container leaves its first value to be read next,
+     * and {@link #nextValue()} closes the containers ending after a value.
+     */
+    private void validate() {
+        do {
+            while (readValue()) ;
+        } while (nextValue());
+    }
+
+    /**
+     * Reads a scalar or an empty container, or opens a container and returns true, as its first value is to follow.
+     */
+    private boolean readValue() {
+        int c = skipWhitespace();
+        switch (c) {
+            case '{' -> {
+                open(true);
+                c = skipWhitespace();
+                if (c != '}') {
+                    readKey(c);
+                    return true;
+                }
+                close();
+            }
+            case '[' -> {
+                open(false);
+                if (skipWhitespace() != ']') return true;
+                close();
+            }
+            case '"' -> readString();
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> readNumber();
+            case 't' -> readLiteral("true");
+            case 'f' -> readLiteral("false");
+            case 'n' -> readLiteral("null");
+            case -1 -> throw error("Unexpected end of input");
+            default -> throw error("Unexpected character " + found(c));
+        }
+        return false;
+    }
+
+    /**
+     * Closes the containers ending after a value, and returns whether another value follows
+     * or the end of the input was reached.
+     */
+    private boolean nextValue() {
+        while (depth > 0) {
+            int c = skipWhitespace();
+            boolean object = inObject();
+            char end = object ? '}' : ']';
+            if (c == ',') {
+                pos++;
+                if (object) readKey(skipWhitespace());
+                return true;
+            }
+            if (c < 0) throw error(object ? "Unterminated object" : "Unterminated array");
+            if (c != end) throw error("Expected ',' or '" + end + "' but found " + found(c));
+            close();
+        }
+        if (skipWhitespace() >= 0) throw error("Unexpected content after the end of the JSON value");
+        return false;
+    }
+
+    private void open(boolean object) {
+        if (depth == limits.maxDepth()) throw error("Nesting deeper than " + limits.maxDepth());
+        if (depth >>> 6 == containers.length) containers = Arrays.copyOf(containers, containers.length * 2);
+        if (object) containers[depth >>> 6] |= 1L << depth;
+        else containers[depth >>> 6] &= ~(1L << depth);
+        depth++;
+        pos++;
+    }
+
+    private void close() {
+        depth--;
+        pos++;
+    }
+
+    private boolean inObject() {
+        int top = depth - 1;
+        return (containers[top >>> 6] & 1L << top) != 0;
+    }
+
+    private void readKey(int c) {
+        if (c != '"') throw error("Expected a property name");
+        readString();
+        if (skipWhitespace() != ':') throw error("Expected ':'");
+        pos++;
+    }
+
+    /**
+     * Runs of plain ASCII content are skipped in one go, everything else is checked one byte at a time.
+     */
+    private void readString() {
+        long maxEnd = position() + 1 + limits.maxStringLength();
+        pos++;
+        while (true) {
+            pos = JsonStrings.plainEnd(buffer, pos, limit);
+            if (position() > maxEnd) throw error("String longer than " + limits.maxStringLength(), maxEnd);
+            int c = peek();
+            if (c == '"') {
+                pos++;
+                return;
+            }
+            if (c == '\\') readEscape();
+            else if (c < 0) throw error("Unterminated string");
+            else if (c < ' ') throw error("Unescaped control character in a string");
+            else if (c >= 0x80) readMultiByte(c);
+            else pos++;
+            if (position() > maxEnd) throw error("String longer than " + limits.maxStringLength(), maxEnd);
+        }
+    }
+
+    private void readEscape() {
+        long backslash = position();
+        pos++;
+        int c = peek();
+        int length = c == 'u' ? 4 : 0;
+        if (c < 0) throw error("Unterminated string");
+        if (length == 0 && JsonStrings.escaped(c) < 0) throw error("Invalid escape sequence", backslash);
+        pos++;
+        for (int i = 0; i < length; i++) {
+            c = peek();
+            if (c < 0) throw error("Unterminated string");
+            if (JsonStrings.hexValue(c) < 0) throw error("Invalid escape sequence", backslash);
+            pos++;
+        }
+    }
+
+    /**
+     * Accepts the shortest encoding of a code point up to U+10FFFF only, and no encoded surrogates.
+     */
+    private void readMultiByte(int lead) {
+        long start = position();
+        String message = text != null ? "Unpaired surrogate" : "Invalid UTF-8 sequence";
+        int count;
+        int low = 0x80;
+        int high = 0xBF;
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            count = 1;
+        } else if (lead >= 0xE0 && lead <= 0xEF) {
+            count = 2;
+            if (lead == 0xE0) low = 0xA0;
+            else if (lead == 0xED) high = 0x9F;
+        } else if (lead >= 0xF0 && lead <= 0xF4) {
+            count = 3;
+            if (lead == 0xF0) low = 0x90;
+            else if (lead == 0xF4) high = 0x8F;
+        } else {
+            throw error(message, start);
+        }
+        pos++;
+        for (int i = 0; i < count; i++) {
+            int c = peek();
+            if (c < low || c > high) throw error(message, start);
+            pos++;
+            low = 0x80;
+            high = 0xBF;
+        }
+    }
+
+    private void readNumber() {
+        long start = position();
+        int c = peek();
+        if (c == '-') {
+            pos++;
+            c = peek();
+        }
+        if (c == '0') {
+            pos++;
+            c = peek();
+            if (isDigit(c)) throw error("Leading zero in a number", position() - 1);
+        } else {
+            c = readDigits(c, start);
+        }
+        if (c == '.') {
+            pos++;
+            c = readDigits(peek(), start);
+        }
+        if (c == 'e' || c == 'E') {
+            pos++;
+            c = peek();
+            if (c == '+' || c == '-') {
+                pos++;
+                c = peek();
+            }
+            readDigits(c, start);
+        }
+    }
+
+    /**
+     * Reads at least one digit, and returns the byte after them.
+     */
+    private int readDigits(int c, long start) {
+        if (!isDigit(c)) throw error("Expected a digit");
+        do {
+            pos++;
+            if (position() - start > limits.maxNumberLength()) {
+                throw error("Number longer than " + limits.maxNumberLength(), start + limits.maxNumberLength());
+            }
+            c = peek();
+        } while (isDigit(c));
+        return c;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private void readLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (peek() != literal.charAt(i)) throw error("Expected '" + literal + "'");
+            pos++;
+        }
+    }
+
+    private void skipByteOrderMark() {
+        if (peek() != 0xEF) return;
+        for (int c : BYTE_ORDER_MARK) {
+            if (peek() != c) throw error("Invalid byte order mark");
+            pos++;
+        }
+    }
+
+    /**
+     * Returns the first byte that is not whitespace without consuming it, or -1 at the end of the input.
+     */
+    private int skipWhitespace() {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            pos++;
+        }
+    }
+
+    /**
+     * Returns the next byte without consuming it, or -1 at the end of the input.
+     */
+    private int peek() {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos] & 0xFF;
+    }
+
+    /**
+     * Reads the next chunk of input into the buffer, or throws the error held back until the chunk before was checked.
+     */
+    private boolean fill() {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        if (pendingError != null) throw error(pendingError);
+        while (more && limit == 0) {
+            if (text != null) copyChars();
+            else readBytes();
+        }
+        truncate();
+        if (limit == 0 && pendingError != null) throw error(pendingError);
+        return limit > 0;
+    }
+
+    private void copyChars() {
+        int start = (int) offset;
+        limit = Math.min(buffer.length, text.length() - start);
+        for (int i = 0; i < limit; i++) {
+            char c = text.charAt(start + i);
+            if (c < 0x80) buffer[i] = (byte) c;
+            else if (!Character.isSurrogate(c) || isPaired(start + i)) buffer[i] = OTHER_CHAR;
+            else buffer[i] = UNPAIRED_SURROGATE;
+        }
+        more = start + limit < text.length();
+    }
+
+    private boolean isPaired(int index) {
+        if (Character.isHighSurrogate(text.charAt(index))) {
+            return index + 1 < text.length() && Character.isLowSurrogate(text.charAt(index + 1));
+        }
+        return index > 0 && Character.isHighSurrogate(text.charAt(index - 1));
+    }
+
+    private void readBytes() {
+        try {
+            int read = in.read(buffer);
+            if (read < 0) more = false;
+            else limit = read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Cuts the buffer at the maximum size, the error is thrown when the bytes before the cut were found valid.
+     */
+    private void truncate() {
+        long maxSize = limits.maxSize();
+        if (offset + limit > maxSize) {
+            limit = (int) (maxSize - offset);
+            more = false;
+            pendingError = "Input larger than " + maxSize;
+        }
+    }
+
+    private long position() {
+        return offset + pos;
+    }
+
+    private String found(int c) {
+        if (text != null) return "'" + text.charAt((int) position()) + "'";
+        return c < 0x80 ? "'" + (char) c + "'" : String.format("byte 0x%02X", c);
+    }
+
+    private JsonParseException error(String message) {
+        return error(message, position());
+    }
+
+    private JsonParseException error(String message, long position) {
+        return new JsonParseException(message + (text != null ? " at position " : " at byte offset ") + position);
+    }
+}
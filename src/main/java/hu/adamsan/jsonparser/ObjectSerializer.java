@@ -0,0 +1,238 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.JsonWriteException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Writes model instances, collections, arrays and scalars as JSON text.
+ * The properties of a model class are resolved once into a cached plan: the getter of each field
+ * and its property name, already quoted and escaped, honoring {@link JsonPropertyName}.
+ */
+final class ObjectSerializer {
+    private static final ClassValue<List<Property>> PLANS = new ClassValue<>() {
+        @Override
+        protected List<Property> computeValue(Class<?> type) {
+            return plan(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType LONG_GETTER_TYPE = MethodType.methodType(long.class, Object.class);
+    private static final MethodType DOUBLE_GETTER_TYPE = MethodType.methodType(double.class, Object.class);
+    private static final MethodType BOOLEAN_GETTER_TYPE = MethodType.methodType(boolean.class, Object.class);
+
+    private final JsonOutput out;
+
+    ObjectSerializer(JsonOutput out) {
+        this.out = out;
+    }
+
+    void write(Object value) {
+        if (value == null) out.write("null");
+        else if (value instanceof CharSequence s) out.writeString(s);
+        else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+            out.writeLong(((Number) value).longValue());
+        else if (value instanceof Double || value instanceof Float) writeFloatingPoint(((Number) value).doubleValue());
+        else if (value instanceof BigDecimal || value instanceof BigInteger) out.write(value.toString());
+        else if (value instanceof Boolean b) out.write(b ? "true" : "false");
+        else if (value instanceof Character c) out.writeString(String.valueOf(c));
+        else if (value instanceof Enum<?> e) out.writeString(e.name());
+        else if (value instanceof JSON json) new TreeWriter(out, TreeWriter.Style.COMPACT).write(json);
+        else if (value instanceof Map<?, ?> map) writeMap(map);
+        else if (value instanceof Iterable<?> iterable) writeIterable(iterable);
+        else if (value.getClass().isArray()) writeArray(value);
+        else writeBean(value);
+    }
+
+    private void writeFloatingPoint(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) out.write("null");
+        else out.writeDouble(value);
+    }
+
+    private void writeMap(Map<?, ?> map) {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            if (!first) out.write(',');
+            first = false;
+            out.writeString(String.valueOf(e.getKey()));
+            out.write(':');
+            write(e.getValue());
+        }
+        out.write('}');
+    }
+
+    private void writeIterable(Iterable<?> iterable) {
+        out.write('[');
+        boolean first = true;
+        for (Object item : iterable) {
+            if (!first) out.write(',');
+            first = false;
+            write(item);
+        }
+        out.write(']');
+    }
+
+    private void writeArray(Object array) {
+        out.write('[');
+        if (array instanceof int[] a) {
+            for (int i = 0; i < a.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeLong(a[i]);
+            }
+        } else if (array instanceof long[] a) {
+            for (int i = 0; i < a.length; i++) {
+                if (i > 0) out.write(',');
+                out.writeLong(a[i]);
+            }
+        } else if (array instanceof double[] a) {
+            for (int i = 0; i < a.length; i++) {
+                if (i > 0) out.write(',');
+                writeFloatingPoint(a[i]);
+            }
+        } else if (array instanceof Object[] a) {
+            for (int i = 0; i < a.length; i++) {
+                if (i > 0) out.write(',');
+                write(a[i]);
+            }
+        } else {
+            for (int i = 0; i < Array.getLength(array); i++) {
+                if (i > 0) out.write(',');
+                write(Array.get(array, i));
+            }
+        }
+        out.write(']');
+    }
+
+    private void writeBean(Object bean) {
+        out.write('{');
+        List<Property> properties = PLANS.get(bean.getClass());
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            out.write(i == 0 ? property.name : property.separatedName);
+            switch (property.kind) {
+                case INTEGRAL -> out.writeLong(property.getLong(bean));
+                case FLOATING_POINT -> writeFloatingPoint(property.getDouble(bean));
+                case BOOLEAN -> out.write(property.getBoolean(bean) ? "true" : "false");
+                case OBJECT -> write(property.get(bean));
+            }
+        }
+        out.write('}');
+    }
+
+    private static List<Property> plan(Class<?> clazz) {
+        Method[] methods = clazz.getMethods();
+        List<Property> properties = new ArrayList<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+            Arrays.stream(methods)
+                    .filter(m -> m.getName().equalsIgnoreCase("get" + field.getName())
+                            || m.getName().equalsIgnoreCase("is" + field.getName()))
+                    .filter(m -> m.getParameterCount() == 0 && m.getReturnType() != void.class)
+                    .findFirst()
+                    .ifPresent(getter -> properties.add(new Property(SetterNameFinder.jsonPropertyName(field), getter)));
+        }
+        return List.copyOf(properties);
+    }
+
+    /**
+     * How a property is read: primitive getters keep their exact type, widened to long, double or boolean,
+     * so their values are written without boxing.
+     */
+    private enum Kind {
+        INTEGRAL, FLOATING_POINT, BOOLEAN, OBJECT;
+
+        static Kind of(Class<?> type) {
+            if (type == int.class || type == long.class || type == short.class || type == byte.class) return INTEGRAL;
+            if (type == double.class || type == float.class) return FLOATING_POINT;
+            if (type == boolean.class) return BOOLEAN;
+            return OBJECT;
+        }
+
+        MethodType getterType() {
+            return switch (this) {
+                case INTEGRAL -> LONG_GETTER_TYPE;
+                case FLOATING_POINT -> DOUBLE_GETTER_TYPE;
+                case BOOLEAN -> BOOLEAN_GETTER_TYPE;
+                case OBJECT -> GETTER_TYPE;
+            };
+        }
+    }
+
+    private static final class Property {
+        final char[] name;
+        final char[] separatedName;
+        final Kind kind;
+        private final MethodHandle getter;
+
+        Property(String jsonPropertyName, Method getter) {
+            StringBuilder quoted = new StringBuilder();
+            JsonOutput out = new JsonOutput(quoted);
+            out.writeString(jsonPropertyName);
+            out.flush();
+            this.name = (quoted + ":").toCharArray();
+            this.separatedName = ("," + quoted + ":").toCharArray();
+            this.kind = Kind.of(getter.getReturnType());
+            this.getter = unreflect(getter).asType(kind.getterType());
+        }
+
+        Object get(Object bean) {
+            try {
+                return (Object) getter.invokeExact(bean);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JsonWriteException(bean.getClass(), e);
+            }
+        }
+
+        long getLong(Object bean) {
+            try {
+                return (long) getter.invokeExact(bean);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JsonWriteException(bean.getClass(), e);
+            }
+        }
+
+        double getDouble(Object bean) {
+            try {
+                return (double) getter.invokeExact(bean);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JsonWriteException(bean.getClass(), e);
+            }
+        }
+
+        boolean getBoolean(Object bean) {
+            try {
+                return (boolean) getter.invokeExact(bean);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new JsonWriteException(bean.getClass(), e);
+            }
+        }
+
+        private static MethodHandle unreflect(Method method) {
+            method.trySetAccessible();
+            try {
+                return MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Getter is not accessible: " + method, e);
+            }
+        }
+    }
+}
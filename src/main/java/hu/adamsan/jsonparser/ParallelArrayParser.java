@@ -0,0 +1,351 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Parses a large top-level array on all cores. The text is cut into chunks at arbitrary offsets,
+ * and every chunk is scanned in parallel for brackets, commas and quotes. A chunk cannot know whether it starts
+ * inside a string, so the scan speculates both ways at once: the quotes seen flip between the two cases,
+ * so every structural character belongs to exactly one of them. Joining the chunks in order tells which case was right
+ * for each, giving the offsets of the commas between the array items, which are then parsed in parallel as well.
+ * Every byte between the brackets belongs to exactly one item range and every range must hold exactly one value,
+ * so malformed input is rejected just like by the sequential parsers. A file is mapped in segments, each starting after
+ * the last comma between items found in the one before it, so only a single item has to fit in a segment.
+ */
+abstract sealed class ParallelArrayParser {
+    static final int MIN_PARALLEL_LENGTH = 1 << 20;
+    static final int SEGMENT_SIZE = 1 << 30;
+    private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    private final int start;
+    private final int limit;
+
+    private ParallelArrayParser(int start, int limit) {
+        this.start = start;
+        this.limit = limit;
+    }
+
+    static JSON parse(String json) {
+        return new StringArrayParser(json).parse();
+    }
+
+    static JSON parse(ByteBuffer json) {
+        return new Utf8ArrayParser(json, 0).parse();
+    }
+
+    /**
+     * Parses the file, mapping it in segments of up to the given size. A document other than a top-level array
+     * is mapped as a whole, so it can be at most {@link Integer#MAX_VALUE} bytes long.
+     */
+    static JSON parse(FileChannel channel, int segmentSize) throws IOException {
+        long size = channel.size();
+        if (size <= segmentSize) return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        long base = 0;
+        ParallelArrayParser segment = segment(channel, base, segmentSize);
+        int open = segment.skipWhitespace(segment.start);
+        if (open == segment.limit || segment.at(open) != '[') {
+            if (size > Integer.MAX_VALUE) throw segment.error("Only a top-level array can be longer than " + Integer.MAX_VALUE + " bytes", open);
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+        List<List<JSON>> parsed = new ArrayList<>();
+        int from = open + 1;
+        while (true) {
+            int end = segment.parseItems(from, base + segment.limit == size, parsed);
+            if (end < from) throw segment.error("Array item is longer than " + segmentSize + " bytes", from);
+            if (segment.at(end) == ']') {
+                segment.checkEnd(end + 1);
+                break;
+            }
+            base += end + 1;
+            segment = segment(channel, base, segmentSize);
+            from = 0;
+        }
+        for (base += segment.limit; base < size; base += segment.limit) {
+            segment = segment(channel, base, segmentSize);
+            segment.checkEnd(0);
+        }
+        return assemble(parsed);
+    }
+
+    private static ParallelArrayParser segment(FileChannel channel, long base, int segmentSize) throws IOException {
+        long size = channel.size();
+        return new Utf8ArrayParser(channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(segmentSize, size - base)), base);
+    }
+
+    /**
+     * Returns the char or byte at the offset.
+     */
+    abstract int at(int offset);
+
+    /**
+     * Parses the documents that are not large top-level arrays.
+     */
+    abstract JSON parseSequentially();
+
+    /**
+     * Parses the value in each of the given ranges, reusing one parser.
+     */
+    abstract List<JSON> parseItems(int[] starts, int[] ends, int from, int to);
+
+    abstract JsonParseException error(String message, int offset);
+
+    JSON parse() {
+        int open = skipWhitespace(start);
+        if (limit - start < MIN_PARALLEL_LENGTH || open == limit || at(open) != '[') return parseSequentially();
+        List<List<JSON>> parsed = new ArrayList<>();
+        checkEnd(parseItems(open + 1, true, parsed) + 1);
+        return assemble(parsed);
+    }
+
+    /**
+     * Parses the items from the offset on in batches, adding them to the list, and returns the offset of the bracket
+     * closing the array. If more input follows the limit and the array is not closed before it, only the items
+     * up to the last comma are parsed and its offset is returned, or the offset before the first item if there is none.
+     */
+    private int parseItems(int from, boolean last, List<List<JSON>> parsed) {
+        int[] bounds = chunkBounds(from);
+        ChunkScan[] scans = IntStream.range(0, bounds.length - 1).parallel()
+                .mapToObj(chunk -> scan(bounds[chunk], bounds[chunk + 1]))
+                .toArray(ChunkScan[]::new);
+        IntList commas = new IntList();
+        int close = findItems(scans, commas, last);
+        if (close < 0 && commas.size == 0) return from - 1;
+        if (close >= 0 && commas.size == 0 && from > start && at(from - 1) == '[' && isBlank(from, close)) return close;
+
+        int items = close < 0 ? commas.size : commas.size + 1;
+        int[] starts = new int[items];
+        int[] ends = new int[items];
+        starts[0] = from;
+        for (int i = 0; i < commas.size; i++) {
+            ends[i] = commas.values[i];
+            if (i + 1 < items) starts[i + 1] = commas.values[i] + 1;
+        }
+        if (close >= 0) ends[items - 1] = close;
+
+        int batches = Math.min(items, parallelism() * 4);
+        parsed.addAll(IntStream.range(0, batches).parallel()
+                .mapToObj(batch -> parseItems(starts, ends, (int) ((long) items * batch / batches),
+                        (int) ((long) items * (batch + 1) / batches)))
+                .toList());
+        return close < 0 ? commas.values[commas.size - 1] : close;
+    }
+
+    private int skipWhitespace(int from) {
+        while (from < limit && isWhitespace(at(from))) from++;
+        return from;
+    }
+
+    private void checkEnd(int from) {
+        int end = skipWhitespace(from);
+        if (end < limit) throw error("Unexpected content after the end of the JSON value", end);
+    }
+
+    /**
+     * Cuts the content after the opening bracket into chunks of equal size, one boundary is moved forward
+     * while it follows a backslash, so no chunk starts in the middle of an escape sequence.
+     */
+    private int[] chunkBounds(int from) {
+        int chunks = Math.max(1, Math.min((limit - from) / MIN_CHUNK_SIZE, parallelism() * 4));
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = from;
+        bounds[chunks] = limit;
+        for (int i = 1; i < chunks; i++) {
+            int bound = Math.max(bounds[i - 1], from + (int) ((long) (limit - from) * i / chunks));
+            while (bound < limit && at(bound - 1) == '\\') bound++;
+            bounds[i] = bound;
+        }
+        return bounds;
+    }
+
+    private ChunkScan scan(int from, int to) {
+        ChunkScan scan = new ChunkScan();
+        int quotes = 0;
+        boolean escaped = false;
+        for (int i = from; i < to; i++) {
+            int c = at(i);
+            if (escaped) {
+                escaped = false;
+                continue;
+            }
+            switch (c) {
+                case '\\' -> escaped = true;
+                case '"' -> quotes ^= 1;
+                case '[', '{' -> scan.cases[quotes].depth++;
+                case ']', '}' -> scan.cases[quotes].close(i);
+                case ',' -> scan.cases[quotes].comma(i);
+                default -> {
+                }
+            }
+        }
+        scan.quotes = quotes;
+        return scan;
+    }
+
+    /**
+     * Joins the chunk scans in order, collecting the commas at the depth of the array items,
+     * and returns the offset of the bracket closing the array, or -1 if it is not closed and the input goes on.
+     */
+    private int findItems(ChunkScan[] scans, IntList commas, boolean last) {
+        int depth = 1;
+        int inString = 0;
+        for (ChunkScan scan : scans) {
+            Case chunk = scan.cases[inString];
+            for (int i = 0; i < chunk.commas.size; i++) {
+                if (chunk.commaDepths.values[i] == 1 - depth) commas.add(chunk.commas.values[i]);
+            }
+            if (chunk.closes.size >= depth) {
+                int close = chunk.closes.values[depth - 1];
+                if (at(close) != ']') throw error("Expected ',' or ']' but found '" + (char) at(close) + "'", close);
+                return close;
+            }
+            depth += chunk.depth;
+            inString ^= scan.quotes;
+        }
+        if (!last) return -1;
+        throw error("Unterminated array", limit);
+    }
+
+    private static JSONArray assemble(List<List<JSON>> parsed) {
+        JSONArray.Builder numbers = new JSONArray.Builder();
+        List<JSON> values = null;
+        for (List<JSON> batch : parsed) {
+            for (JSON value : batch) {
+                if (values == null && value instanceof JSONNumber number && numbers.add(number)) continue;
+                if (values == null) values = numbers.toItems();
+                values.add(value);
+            }
+        }
+        return values == null ? numbers.build() : new JSONArray(values);
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) if (!isWhitespace(at(i))) return false;
+        return true;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private static int parallelism() {
+        return ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * The brackets and commas of a chunk, for the case it starts outside a string and for the case it starts inside one.
+     */
+    private static final class ChunkScan {
+        final Case[] cases = {new Case(), new Case()};
+        int quotes;
+    }
+
+    /**
+     * Depths are relative to the start of the chunk. A comma between items is always at the lowest depth
+     * reached so far, so only those are kept, and for each new lowest depth the closing bracket reaching it.
+     */
+    private static final class Case {
+        int depth;
+        int min;
+        final IntList commas = new IntList();
+        final IntList commaDepths = new IntList();
+        final IntList closes = new IntList();
+
+        void close(int offset) {
+            if (--depth < min) {
+                min = depth;
+                closes.add(offset);
+            }
+        }
+
+        void comma(int offset) {
+            if (depth == min) {
+                commas.add(offset);
+                commaDepths.add(depth);
+            }
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    private static final class StringArrayParser extends ParallelArrayParser {
+        private final String json;
+
+        StringArrayParser(String json) {
+            super(0, json.length());
+            this.json = json;
+        }
+
+        @Override
+        int at(int offset) {
+            return json.charAt(offset);
+        }
+
+        @Override
+        JSON parseSequentially() {
+            return new JsonParser().parse(json, 0, json.length());
+        }
+
+        @Override
+        List<JSON> parseItems(int[] starts, int[] ends, int from, int to) {
+            JsonParser parser = new JsonParser();
+            return IntStream.range(from, to).mapToObj(i -> parser.parse(json, starts[i], ends[i])).toList();
+        }
+
+        @Override
+        JsonParseException error(String message, int offset) {
+            return new JsonParseException(message + " at position " + offset);
+        }
+    }
+
+    private static final class Utf8ArrayParser extends ParallelArrayParser {
+        private final ByteBuffer json;
+        private final long base;
+
+        /**
+         * The base is the offset of the buffer position in the whole input, errors give their offset in it.
+         */
+        Utf8ArrayParser(ByteBuffer json, long base) {
+            super(json.position(), json.limit());
+            this.json = json;
+            this.base = base;
+        }
+
+        @Override
+        int at(int offset) {
+            return json.get(offset);
+        }
+
+        @Override
+        JSON parseSequentially() {
+            return new Utf8JsonParser().parse(json);
+        }
+
+        @Override
+        List<JSON> parseItems(int[] starts, int[] ends, int from, int to) {
+            Utf8JsonParser parser = new Utf8JsonParser();
+            return IntStream.range(from, to).mapToObj(i -> parser.parse(json, base, starts[i], ends[i])).toList();
+        }
+
+        @Override
+        JsonParseException error(String message, int offset) {
+            return new JsonParseException(message + " at byte offset " + (base + offset - json.position()));
+        }
+    }
+}
@@ -11,12 +11,15 @@ public class SetterNameFinder {
     private final Map<String, String> jsonToFieldNameMap = new HashMap<>();
     public <T> SetterNameFinder(Class<T> clazz) {
         for (Field field : clazz.getDeclaredFields()) {
-            var customization = field.getAnnotation(JsonPropertyName.class);
-            var name = customization != null ? customization.name() : field.getName();
-            jsonToFieldNameMap.put(name, field.getName());
+            jsonToFieldNameMap.put(jsonPropertyName(field), field.getName());
         }
     }
 
+    static String jsonPropertyName(Field field) {
+        var customization = field.getAnnotation(JsonPropertyName.class);
+        return customization != null ? customization.name() : field.getName();
+    }
+
     public String getFieldName(String jsonPropertyName) {
         return jsonToFieldNameMap.get(jsonPropertyName);
     }
@@ -0,0 +1,104 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.JsonConversionException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+import java.util.*;
+
+/**
+ * Binds the tokens of a {@link JsonReader} straight into model objects, following the same rules as
+ * {@link JSON#convert(Class)}, but without building the intermediate tree of {@link JSON} nodes.
+ * Only scalar values are turned into nodes, to reuse their conversion rules.
+ * Objects read into an {@code Object} or {@code Map} are bound to a {@link LinkedHashMap}, arrays to a {@link List}.
+ * Types are followed through their cached {@link TypeBinding}, so items are bound without resolving their type again.
+ */
+final class StreamingBinder {
+    private final JsonReader reader;
+
+    StreamingBinder(JsonReader reader) {
+        this.reader = reader;
+    }
+
+    static <T> T bind(String json, TypeBinding binding) {
+        return bind(new JsonReader(json.toCharArray(), json.length()), binding);
+    }
+
+    /**
+     * Binds the whole document of the reader, with a plan resolved once by the caller for all the documents it binds.
+     */
+    static <T> T bind(JsonReader reader, TypeBinding binding) {
+        T value = bindValue(reader, binding);
+        reader.peek();
+        return value;
+    }
+
+    /**
+     * Binds the next value of the reader, leaving the reader right after it, so it can be used inside a document.
+     */
+    static <T> T bindValue(JsonReader reader, TypeBinding binding) {
+        try {
+            return (T) new StreamingBinder(reader).read(binding);
+        } catch (ReflectiveOperationException e) {
+            throw new JsonConversionException(binding.type, e);
+        }
+    }
+
+    Object read(TypeBinding binding) throws ReflectiveOperationException {
+        return switch (reader.peek()) {
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            case BEGIN_ARRAY -> readArray(binding);
+            case BEGIN_OBJECT -> readObject(binding);
+            default -> reader.readTree().convertValue(binding);
+        };
+    }
+
+    private Object readArray(TypeBinding binding) throws ReflectiveOperationException {
+        Class<?> clazz = binding.rawType;
+        if (clazz.isArray() && clazz.getComponentType().isPrimitive()) return reader.readTree().convertValue(binding);
+        if (clazz.isArray()) {
+            List<Object> items = readItems(binding.item());
+            Object array = Array.newInstance(clazz.getComponentType(), items.size());
+            for (int i = 0; i < items.size(); i++) Array.set(array, i, items.get(i));
+            return array;
+        }
+        if (clazz.isAssignableFrom(ArrayList.class)) return readItems(binding.item());
+        if (clazz.isAssignableFrom(HashSet.class)) return new HashSet<>(readItems(binding.item()));
+        throw new JsonConversionException(binding.type, null);
+    }
+
+    private List<Object> readItems(TypeBinding item) throws ReflectiveOperationException {
+        List<Object> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) items.add(read(item));
+        reader.endArray();
+        return items;
+    }
+
+    private Object readObject(TypeBinding binding) throws ReflectiveOperationException {
+        Class<?> clazz = binding.rawType;
+        if (clazz.isAssignableFrom(LinkedHashMap.class)) return readMap(binding.value());
+
+        ClassBinding classBinding = ClassBinding.of(clazz);
+        Object object = classBinding.newInstance();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            ClassBinding.Property property = classBinding.property(reader.nextName());
+            if (property == null) reader.skipValue();
+            else property.set(object, read(property.binding));
+        }
+        reader.endObject();
+        return object;
+    }
+
+    private Map<String, Object> readMap(TypeBinding value) throws ReflectiveOperationException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) map.put(reader.nextName(), read(value));
+        reader.endObject();
+        return map;
+    }
+}
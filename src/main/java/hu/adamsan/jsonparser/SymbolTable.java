@@ -0,0 +1,99 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.JSONString;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of canonical {@link JSONString} instances shared by all parsers, so the keys repeated in every document
+ * of a stream are created once, and the trees keeping them share the same key objects.
+ * The table is direct mapped: a string hashes to exactly one slot, and a newer string simply replaces the older one
+ * on a collision, so lookups never lock and the table never grows. Candidates are compared in place in the input,
+ * a new string is created only on a miss.
+ */
+final class SymbolTable {
+    static final SymbolTable KEYS = new SymbolTable(4096, 64);
+    static final SymbolTable VALUES = new SymbolTable(1024, 16);
+
+    private final AtomicReferenceArray<JSONString> slots;
+    private final int mask;
+    private final int maxLength;
+
+    SymbolTable(int size, int maxLength) {
+        if (Integer.bitCount(size) != 1) throw new IllegalArgumentException("size must be a power of two: " + size);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    JSONString get(String value) {
+        return get(value, 0, value.length());
+    }
+
+    JSONString get(String source, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) return JSONString.of(source.substring(start, end));
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + source.charAt(i);
+        int slot = slot(hash);
+        JSONString cached = slots.get(slot);
+        if (cached != null && cached.value.length() == length && cached.value.regionMatches(0, source, start, length))
+            return cached;
+        return store(slot, source.substring(start, end));
+    }
+
+    JSONString get(char[] source, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) return JSONString.of(new String(source, start, length));
+        int hash = 0;
+        for (int i = start; i < end; i++) hash = 31 * hash + source[i];
+        int slot = slot(hash);
+        JSONString cached = slots.get(slot);
+        if (cached != null && matches(cached.value, source, start, length)) return cached;
+        return store(slot, new String(source, start, length));
+    }
+
+    /**
+     * Looks up a string of UTF-8 bytes in place, computing the same hash as {@link String#hashCode()} on the way.
+     * Returns null if the string is not in the table, including when it is too long for it or not ASCII.
+     */
+    JSONString get(ByteBuffer source, int start, int end) {
+        int length = end - start;
+        if (length > maxLength) return null;
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            byte c = source.get(i);
+            if (c < 0) return null;
+            hash = 31 * hash + c;
+        }
+        JSONString cached = slots.get(slot(hash));
+        if (cached == null || cached.value.length() != length) return null;
+        for (int i = 0; i < length; i++) if (cached.value.charAt(i) != source.get(start + i)) return null;
+        return cached;
+    }
+
+    /**
+     * Makes the string the canonical instance for its hash, used after a miss of {@link #get(ByteBuffer, int, int)}.
+     */
+    JSONString put(String value) {
+        if (value.length() > maxLength) return JSONString.of(value);
+        return store(slot(value.hashCode()), value);
+    }
+
+    private JSONString store(int slot, String value) {
+        JSONString string = JSONString.of(value);
+        slots.set(slot, string);
+        return string;
+    }
+
+    private int slot(int hash) {
+        return (hash ^ hash >>> 16) & mask;
+    }
+
+    private static boolean matches(String value, char[] source, int start, int length) {
+        if (value.length() != length) return false;
+        for (int i = 0; i < length; i++) if (value.charAt(i) != source[start + i]) return false;
+        return true;
+    }
+}
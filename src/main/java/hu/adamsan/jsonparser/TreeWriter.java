@@ -0,0 +1,108 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.util.List;
+
+/**
+ * Writes a tree of {@link JSON} nodes as text in a single pass into a {@link JsonOutput}, so every char is copied once,
+ * however deep the tree is. Packed numeric arrays are written straight from their primitive arrays.
+ */
+final class TreeWriter {
+    enum Style {
+        COMPACT,
+        /**
+         * A space after every comma and colon, on a single line, as {@link JSON#toString()} writes it.
+         */
+        SPACED,
+        /**
+         * Every item and property on its own line, indented by two spaces for every level.
+         */
+        PRETTY
+    }
+
+    private final JsonOutput out;
+    private final Style style;
+
+    TreeWriter(JsonOutput out, Style style) {
+        this.out = out;
+        this.style = style;
+    }
+
+    static void write(JSON value, Appendable target, Style style) {
+        Instrumentation.WriteEvent event = new Instrumentation.WriteEvent();
+        event.begin();
+        long start = Instrumentation.start();
+        JsonOutput output = new JsonOutput(target);
+        new TreeWriter(output, style).write(value);
+        output.flush();
+        Instrumentation.written(event, value.getClass(), output.length(), start);
+    }
+
+    void write(JSON value) {
+        write(value, 0);
+    }
+
+    private void write(JSON value, int depth) {
+        if (value instanceof JSONString string) out.writeString(string.value);
+        else if (value instanceof JSONNumber number) number.writeTo(out);
+        else if (value instanceof JSONObject object) writeObject(object, depth);
+        else if (value instanceof JSONArray array) writeArray(array, depth);
+        else if (value instanceof JSONBoolean bool) out.write(bool.value ? "true" : "false");
+        else out.write("null");
+    }
+
+    private void writeArray(JSONArray array, int depth) {
+        out.write('[');
+        int size;
+        if (array.longs != null) {
+            size = array.longs.length;
+            for (int i = 0; i < size; i++) {
+                separate(i, depth + 1);
+                out.writeLong(array.longs[i]);
+            }
+        } else if (array.doubles != null) {
+            size = array.doubles.length;
+            for (int i = 0; i < size; i++) {
+                separate(i, depth + 1);
+                JSONNumber.writeDouble(array.doubles[i], out);
+            }
+        } else {
+            List<JSON> items = array.items();
+            size = items.size();
+            for (int i = 0; i < size; i++) {
+                separate(i, depth + 1);
+                write(items.get(i), depth + 1);
+            }
+        }
+        if (size > 0 && style == Style.PRETTY) newLine(depth);
+        out.write(']');
+    }
+
+    private void writeObject(JSONObject object, int depth) {
+        object.materialize();
+        out.write('{');
+        List<JSONString> keys = object.keysInOrder;
+        for (int i = 0; i < keys.size(); i++) {
+            JSONString key = keys.get(i);
+            separate(i, depth + 1);
+            out.writeString(key.value);
+            out.write(':');
+            if (style != Style.COMPACT) out.write(' ');
+            write(object.map.get(key), depth + 1);
+        }
+        if (!keys.isEmpty() && style == Style.PRETTY) newLine(depth);
+        out.write('}');
+    }
+
+    private void separate(int index, int depth) {
+        if (index > 0) out.write(',');
+        if (style == Style.PRETTY) newLine(depth);
+        else if (index > 0 && style == Style.SPACED) out.write(' ');
+    }
+
+    private void newLine(int depth) {
+        out.write('\n');
+        for (int i = 0; i < depth; i++) out.write("  ");
+    }
+}
@@ -0,0 +1,203 @@
+package hu.adamsan.jsonparser;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Binding plan of a generic type: its raw class, and the plans of its items and of its map values, as far as they
+ * are needed. Resolved once per type and cached, like {@link ClassBinding}, so converting a long list looks up the plan
+ * of its item type once and not for every item. Type variables are substituted through the generic supertypes,
+ * so the item type of a {@code class Names extends ArrayList<String>} is found as well; wildcards and variables
+ * left unbound stand for their bound.
+ * <p>
+ * Only the plans of classes are cached here, for as long as their class lives. The plan of a generic type is kept by
+ * whoever needs it again, the {@link ClassBinding} of a property, a {@link TypeToken} or a call binding many values,
+ * so no global map keeps the class loaders of the types reachable, or grows with every type ever bound.
+ */
+final class TypeBinding {
+    private static final ClassValue<TypeBinding> CLASSES = new ClassValue<>() {
+        @Override
+        protected TypeBinding computeValue(Class<?> type) {
+            return new TypeBinding(type);
+        }
+    };
+
+    final Type type;
+    /**
+     * The raw class, boxed if it is a primitive.
+     */
+    final Class<?> rawType;
+    private TypeBinding item;
+    private TypeBinding value;
+
+    private TypeBinding(Type type) {
+        this.type = type;
+        Class<?> raw = rawType(type);
+        this.rawType = raw.isPrimitive() ? MethodType.methodType(raw).wrap().returnType() : raw;
+    }
+
+    /**
+     * Returns the cached plan of a class, or a new plan for a generic type.
+     */
+    static TypeBinding of(Type type) {
+        if (type instanceof Class<?> clazz) return CLASSES.get(clazz);
+        return new TypeBinding(type);
+    }
+
+    /**
+     * The plan of the component type of an array, or of the items of a collection, Object if it has no type argument.
+     * Resolved on first use, which also keeps self-referencing types from being resolved forever.
+     */
+    TypeBinding item() {
+        TypeBinding binding = item;
+        if (binding == null) {
+            Type itemType = rawType.isArray() ? componentType(type) : typeArgument(type, Collection.class, 0);
+            item = binding = of(itemType);
+        }
+        return binding;
+    }
+
+    /**
+     * The plan of the values of a map, Object if it has no type argument.
+     */
+    TypeBinding value() {
+        TypeBinding binding = value;
+        if (binding == null) value = binding = of(typeArgument(type, Map.class, 1));
+        return binding;
+    }
+
+    static Class<?> rawType(Type type) {
+        if (type instanceof Class<?> clazz) return clazz;
+        if (type instanceof ParameterizedType parameterized) return rawType(parameterized.getRawType());
+        if (type instanceof GenericArrayType array)
+            return Array.newInstance(rawType(array.getGenericComponentType()), 0).getClass();
+        if (type instanceof WildcardType wildcard) return rawType(bound(wildcard));
+        if (type instanceof TypeVariable<?> variable) return rawType(variable.getBounds()[0]);
+        return Object.class;
+    }
+
+    /**
+     * A {@code ? super T} is read as a T, and any other wildcard as its upper bound.
+     */
+    private static Type bound(WildcardType wildcard) {
+        Type[] lower = wildcard.getLowerBounds();
+        return lower.length > 0 ? lower[0] : wildcard.getUpperBounds()[0];
+    }
+
+    private static Type componentType(Type type) {
+        if (type instanceof GenericArrayType array) return array.getGenericComponentType();
+        return rawType(type).getComponentType();
+    }
+
+    /**
+     * Returns the given type argument of a generic supertype as the type sees it, like String for the Map value type
+     * of a {@code Map<Integer, String>}, or Object if the type is raw or not a subtype at all.
+     */
+    static Type typeArgument(Type type, Class<?> supertype, int index) {
+        Type resolved = asSupertype(type, supertype);
+        if (resolved instanceof ParameterizedType parameterized) {
+            Type argument = parameterized.getActualTypeArguments()[index];
+            return argument instanceof WildcardType wildcard ? bound(wildcard) : argument;
+        }
+        return Object.class;
+    }
+
+    /**
+     * Walks up the generic superclass and interfaces leading to the supertype, substituting the type arguments of each
+     * step for the type variables of the next. Returns null if the type does not extend the supertype.
+     */
+    private static Type asSupertype(Type type, Class<?> supertype) {
+        Class<?> raw = rawType(type);
+        if (raw == supertype) return type;
+        if (!supertype.isAssignableFrom(raw)) return null;
+        Map<TypeVariable<?>, Type> arguments = new HashMap<>();
+        if (type instanceof ParameterizedType parameterized) {
+            TypeVariable<?>[] variables = raw.getTypeParameters();
+            Type[] actual = parameterized.getActualTypeArguments();
+            for (int i = 0; i < variables.length; i++) arguments.put(variables[i], actual[i]);
+        }
+        List<Type> parents = new ArrayList<>(Arrays.asList(raw.getGenericInterfaces()));
+        if (raw.getGenericSuperclass() != null) parents.add(raw.getGenericSuperclass());
+        for (Type parent : parents) {
+            if (supertype.isAssignableFrom(rawType(parent))) return asSupertype(substitute(parent, arguments), supertype);
+        }
+        return null;
+    }
+
+    private static Type substitute(Type type, Map<TypeVariable<?>, Type> arguments) {
+        if (type instanceof TypeVariable<?> variable) return arguments.getOrDefault(variable, variable);
+        if (type instanceof GenericArrayType array) {
+            Type component = substitute(array.getGenericComponentType(), arguments);
+            if (component instanceof Class<?> clazz) return Array.newInstance(clazz, 0).getClass();
+            return new GenericArray(component);
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            Type[] actual = parameterized.getActualTypeArguments().clone();
+            for (int i = 0; i < actual.length; i++) actual[i] = substitute(actual[i], arguments);
+            return new Parameterized((Class<?>) parameterized.getRawType(), parameterized.getOwnerType(), actual);
+        }
+        return type;
+    }
+
+    /**
+     * Equal to the JDK implementation of a parameterized type with the same parts, and with the same hash code.
+     */
+    private record Parameterized(Class<?> rawType, Type ownerType, Type[] typeArguments) implements ParameterizedType {
+        @Override
+        public Type[] getActualTypeArguments() {
+            return typeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ParameterizedType that && rawType.equals(that.getRawType())
+                    && Objects.equals(ownerType, that.getOwnerType())
+                    && Arrays.equals(typeArguments, that.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(typeArguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner arguments = new StringJoiner(", ", "<", ">");
+            for (Type argument : typeArguments) arguments.add(argument.getTypeName());
+            return rawType.getName() + arguments;
+        }
+    }
+
+    private record GenericArray(Type component) implements GenericArrayType {
+        @Override
+        public Type getGenericComponentType() {
+            return component;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GenericArrayType that && component.equals(that.getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(component);
+        }
+
+        @Override
+        public String toString() {
+            return component.getTypeName() + "[]";
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package hu.adamsan.jsonparser;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * A generic type like {@code List<List<Person>>} or {@code Map<String, List<Item>>}, which a class literal cannot
+ * express, for {@link JSON#parse(String, TypeToken)} and {@link JSON#convert(TypeToken)}. It is captured by
+ * an anonymous subclass, whose superclass holds the type argument: {@code new TypeToken<List<Person>>() {}}.
+ * A type at hand, like the generic type of a field, is wrapped by {@link #of(Type)}.
+ */
+public abstract class TypeToken<T> {
+    private final Type type;
+    private TypeBinding binding;
+
+    protected TypeToken() {
+        if (!(getClass().getGenericSuperclass() instanceof ParameterizedType superclass))
+            throw new IllegalStateException("TypeToken needs a type argument, like new TypeToken<List<Person>>() {}");
+        this.type = superclass.getActualTypeArguments()[0];
+    }
+
+    private TypeToken(Type type) {
+        this.type = type;
+    }
+
+    public static TypeToken<?> of(Type type) {
+        return new Wrapped<>(type);
+    }
+
+    public final Type getType() {
+        return type;
+    }
+
+    public final Class<? super T> getRawType() {
+        return (Class<? super T>) TypeBinding.rawType(type);
+    }
+
+    /**
+     * The binding plan of the type, resolved on first use and kept with the token.
+     */
+    final TypeBinding binding() {
+        TypeBinding plan = binding;
+        if (plan == null) binding = plan = TypeBinding.of(type);
+        return plan;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        return o instanceof TypeToken<?> that && type.equals(that.type);
+    }
+
+    @Override
+    public final int hashCode() {
+        return type.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return type.getTypeName();
+    }
+
+    private static final class Wrapped<T> extends TypeToken<T> {
+        Wrapped(Type type) {
+            super(type);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JSON.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Recursive descent parser working directly on UTF-8 encoded bytes. Only the content of strings is decoded,
+ * and only when the string node is created, the structure itself is never converted to chars.
+ * Works with heap, direct and memory mapped buffers alike, using absolute reads so the buffer position is untouched.
+ */
+final class Utf8JsonParser {
+    private ByteBuffer json;
+    private int start;
+    private int limit;
+    private int pos;
+    private long offset;
+    private static final int SCRATCH_SIZE = 64;
+    private static final int MAX_RETAINED_SCRATCH_SIZE = 1 << 16;
+
+    private byte[] scratch = new byte[SCRATCH_SIZE];
+    private final NumberText numberText = new NumberText();
+    private final JSONNumber number = new JSONNumber();
+    private final JSONArray.Builders builders = new JSONArray.Builders();
+
+    JSON parse(ByteBuffer json) {
+        begin(json, json.position(), json.limit());
+        skipByteOrderMark();
+        return readDocument();
+    }
+
+    /**
+     * Parses the value between the given absolute offsets, error offsets are still counted from the position of the buffer.
+     */
+    JSON parse(ByteBuffer json, int from, int to) {
+        return parse(json, 0, from, to);
+    }
+
+    /**
+     * Like {@link #parse(ByteBuffer, int, int)} for a buffer holding a part of the input, which starts at the given
+     * offset of the whole input, so errors give their offset in the whole input.
+     */
+    JSON parse(ByteBuffer json, long offset, int from, int to) {
+        begin(json, from, to);
+        this.offset = offset;
+        return readDocument();
+    }
+
+    /**
+     * Drops the reference to the last input and the scratch buffers that grew too large.
+     */
+    void reset() {
+        json = null;
+        if (scratch.length > MAX_RETAINED_SCRATCH_SIZE) scratch = new byte[SCRATCH_SIZE];
+        builders.reset();
+    }
+
+    private void begin(ByteBuffer json, int from, int to) {
+        builders.reset();
+        this.offset = 0;
+        this.json = json;
+        this.start = json.position();
+        this.limit = to;
+        this.pos = from;
+    }
+
+    private JSON readDocument() {
+        JSON value = readValue();
+        skipWhitespace();
+        if (pos < limit) throw error("Unexpected content after the end of the JSON value");
+        this.json = null;
+        return value;
+    }
+
+    private void skipByteOrderMark() {
+        if (limit - pos >= 3 && json.get(pos) == (byte) 0xEF && json.get(pos + 1) == (byte) 0xBB
+                && json.get(pos + 2) == (byte) 0xBF) pos += 3;
+    }
+
+    private JSON readValue() {
+        skipWhitespace();
+        if (pos >= limit) throw error("Unexpected end of input");
+        byte c = json.get(pos);
+        return switch (c) {
+            case '"' -> readString(SymbolTable.VALUES);
+            case '{' -> {
+                pos++;
+                yield readObject();
+            }
+            case '[' -> {
+                pos++;
+                yield readArray();
+            }
+            case 'n' -> {
+                readLiteral("null");
+                yield new JSONNull();
+            }
+            case 't' -> {
+                readLiteral("true");
+                yield new JSONBoolean(true);
+            }
+            case 'f' -> {
+                readLiteral("false");
+                yield new JSONBoolean(false);
+            }
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> readNumber();
+            default -> throw error("Unexpected byte 0x" + Integer.toHexString(c & 0xFF));
+        };
+    }
+
+    private JSONObject readObject() {
+        JSONObject object = new JSONObject();
+        skipWhitespace();
+        if (pos < limit && json.get(pos) == '}') {
+            pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (pos >= limit || json.get(pos) != '"') throw error("Expected a property name");
+            JSONString key = readString(SymbolTable.KEYS);
+            skipWhitespace();
+            expect(':');
+            object.put(key, readValue());
+            skipWhitespace();
+            if (pos >= limit) throw error("Unterminated object");
+            byte c = json.get(pos);
+            if (c != ',' && c != '}') throw error("Expected ',' or '}'");
+            pos++;
+            if (c == '}') return object;
+        }
+    }
+
+    private JSONArray readArray() {
+        JSONArray.Builder numbers = builders.acquire();
+        JSONArray array = readItems(numbers);
+        builders.release();
+        return array;
+    }
+
+    private JSONArray readItems(JSONArray.Builder numbers) {
+        List<JSON> items = null;
+        skipWhitespace();
+        if (pos < limit && json.get(pos) == ']') {
+            pos++;
+            return numbers.build();
+        }
+        while (true) {
+            skipWhitespace();
+            if (items == null && pos < limit && isNumberStart(json.get(pos))) {
+                skipNumber();
+                number.scan(numberText, 0, numberText.length());
+                if (!numbers.add(number)) {
+                    items = numbers.toItems();
+                    items.add(new JSONNumber(numberText, 0, numberText.length()));
+                }
+            } else {
+                if (items == null) items = numbers.toItems();
+                items.add(readValue());
+            }
+            skipWhitespace();
+            if (pos >= limit) throw error("Unterminated array");
+            byte c = json.get(pos);
+            if (c != ',' && c != ']') throw error("Expected ',' or ']'");
+            pos++;
+            if (c == ']') return items == null ? numbers.build() : new JSONArray(items);
+        }
+    }
+
+    /**
+     * Finds the end of the string with {@link JsonStrings#scan(ByteBuffer, int, int)}, eight bytes at a time.
+     * Short strings without escapes are looked up in the symbol table in place, so they are decoded only on a miss;
+     * a decoded string as long as its bytes is ASCII, only those are put in the table.
+     */
+    private JSONString readString(SymbolTable symbols) {
+        int from = pos + 1;
+        int end = JsonStrings.scan(json, from, limit);
+        boolean escaped = end < limit && json.get(end) == '\\';
+        if (escaped) end = JsonStrings.stringEnd(json, end, limit);
+        if (end >= limit) throw error("Unterminated string");
+        if (json.get(end) != '"') {
+            pos = end;
+            throw error("Invalid escape sequence");
+        }
+        pos = end + 1;
+        if (escaped) return symbols.get(JsonStrings.unescape(json, from, end));
+        JSONString cached = symbols.get(json, from, end);
+        if (cached != null) return cached;
+        String value = decode(from, end - from);
+        return value.length() == end - from ? symbols.put(value) : JSONString.of(value);
+    }
+
+    private JSONNumber readNumber() {
+        skipNumber();
+        return new JSONNumber(numberText, 0, numberText.length());
+    }
+
+    /**
+     * Skips the number at the cursor and points {@link #numberText} at it.
+     */
+    private void skipNumber() {
+        int from = pos;
+        if (json.get(pos) == '-') pos++;
+        readDigits();
+        if (pos < limit && json.get(pos) == '.') {
+            pos++;
+            readDigits();
+        }
+        if (pos < limit && (json.get(pos) == 'e' || json.get(pos) == 'E')) {
+            pos++;
+            if (pos < limit && (json.get(pos) == '+' || json.get(pos) == '-')) pos++;
+            readDigits();
+        }
+        numberText.start = from;
+        numberText.length = pos - from;
+    }
+
+    private String decode(int from, int length) {
+        return new String(bytes(from, length), offset(from), length, UTF_8);
+    }
+
+    /**
+     * Returns an array holding the given range: the backing array for heap buffers, a reused copy for direct ones.
+     */
+    private byte[] bytes(int from, int length) {
+        if (json.hasArray()) return json.array();
+        if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        json.get(from, scratch, 0, length);
+        return scratch;
+    }
+
+    private int offset(int from) {
+        return json.hasArray() ? json.arrayOffset() + from : 0;
+    }
+
+    private void readDigits() {
+        int from = pos;
+        while (pos < limit && isDigit(json.get(pos))) pos++;
+        if (pos == from) throw error("Expected a digit");
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumberStart(byte c) {
+        return c == '-' || isDigit(c);
+    }
+
+    private void readLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (pos >= limit || json.get(pos) != literal.charAt(i)) throw error("Expected '" + literal + "'");
+            pos++;
+        }
+    }
+
+    private void expect(char c) {
+        if (pos >= limit || json.get(pos) != c) throw error("Expected '" + c + "'");
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit) {
+            byte c = json.get(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return;
+            pos++;
+        }
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message + " at byte offset " + (offset + pos - start));
+    }
+
+    /**
+     * The ASCII text of the last number seen, read straight from the buffer, so numbers are scanned without a copy.
+     */
+    private final class NumberText implements CharSequence {
+        private int start;
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) json.get(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            json.get(start + from, bytes);
+            return new String(bytes, ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
@@ -1,8 +1,24 @@
 package hu.adamsan.jsonparser;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.joining;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 class JSONTest {
 
@@ -19,7 +35,7 @@ class JSONTest {
         Number number = 44;
         JSON.JSONNumber json = (JSON.JSONNumber) JSON.parse(String.valueOf(number));
         assertThat(json).isNotNull();
-        assertThat(json.value.intValue()).isEqualTo(number.intValue());
+        assertThat(json.longValue()).isEqualTo(number.longValue());
     }
 
     @Test
@@ -27,7 +43,7 @@ class JSONTest {
         Number number = 44.345;
         JSON.JSONNumber json = (JSON.JSONNumber) JSON.parse(String.valueOf(number));
         assertThat(json).isNotNull();
-        assertThat(json.value.doubleValue()).isEqualTo(number.doubleValue());
+        assertThat(json.doubleValue()).isEqualTo(number.doubleValue());
     }
 
     @Test
@@ -111,4 +127,289 @@ class JSONTest {
         assertThat(json).isNotNull();
         assertThat(json.items).hasSize(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void assertJsonParseCanParseBooleans() {
+        var json = (JSON.JSONArray) JSON.parse("[true, false]");
+        assertThat(((JSON.JSONBoolean) json.items.get(0)).value).isTrue();
+        assertThat(((JSON.JSONBoolean) json.items.get(1)).value).isFalse();
+    }
+
+    @Test
+    void assertJsonParserCanParseDeeplyNestedStructures() {
+        String input = "{\"a\": [{\"b\": [[1, 2], {\"c\": \"x, y: z\"}]}, []], \"d\": {}}";
+        var json = (JSON.JSONObject) JSON.parse(input);
+        assertThat(json.keysInOrder).extracting(k -> k.value).containsExactly("a", "d");
+        assertThat(json.toString()).isEqualTo("{\"a\": [{\"b\": [[1, 2], {\"c\": \"x, y: z\"}]}, []], \"d\": {}}");
+    }
+
+    @Test
+    void assertJsonParserSkipsEscapedQuotesInStrings() {
+        var json = (JSON.JSONArray) JSON.parse("[\"say \\\"hi\\\"\", \"back\\\\\"]");
+        assertThat(json.items).hasSize(2);
+        assertThat(((JSON.JSONString) json.items.get(0)).value).isEqualTo("say \"hi\"");
+        assertThat(((JSON.JSONString) json.items.get(1)).value).isEqualTo("back\\");
+    }
+
+    @Test
+    void assertJsonParserDecodesEscapeSequences() {
+        String input = "{\"t\\u0061b\": \"line\\nnext\\t\\/\\u00e9\\u20AC \\ud83d\\ude00 \\\"q\\\" \\\\\"}";
+        String expected = "line\nnext\t/é€ \uD83D\uDE00 \"q\" \\";
+        for (JSON json : List.of(JSON.parse(input), JSON.parse(input.getBytes(StandardCharsets.UTF_8)), JSON.parseLazy(input))) {
+            assertThat(json.get("tab").convert(String.class)).isEqualTo(expected);
+        }
+        assertThat(JSON.parse(input).toString()).isEqualTo("{\"tab\": \"line\\nnext\\t/é€ \uD83D\uDE00 \\\"q\\\" \\\\\"}");
+        assertThatThrownBy(() -> JSON.parse("[\"ab\\x\"]")).hasMessage("Invalid escape sequence at position 4");
+        assertThatThrownBy(() -> JSON.parse("[\"ab\\u00g1\"]".getBytes(StandardCharsets.UTF_8)))
+                .hasMessage("Invalid escape sequence at byte offset 4");
+    }
+
+    @Test
+    void assertRangesOfOneLargeStringAreParsedInLinearTime() {
+        int items = 200_000;
+        StringBuilder text = new StringBuilder("[");
+        int[] starts = new int[items];
+        int[] ends = new int[items];
+        for (int i = 0; i < items; i++) {
+            if (i > 0) text.append(',');
+            starts[i] = text.length();
+            text.append("{\"name\":\"item").append(i).append(i == items - 1 ? "\\n" : "").append("\",\"v\":").append(i).append('}');
+            ends[i] = text.length();
+        }
+        String json = text.append(']').toString();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            JsonParser parser = new JsonParser();
+            for (int i = 0; i < items; i++) assertThat(parser.parse(json, starts[i], ends[i]).get("v").convert(Integer.class)).isEqualTo(i);
+            assertThat(((JSON.JSONArray) JSON.parseParallel(json)).size()).isEqualTo(items);
+        });
+        assertThat(new JsonParser().parse(json, starts[items - 1], ends[items - 1]).get("name").convert(String.class))
+                .isEqualTo("item" + (items - 1) + "\n");
+    }
+
+    @Test
+    void assertJsonParseRejectsMalformedInput() {
+        assertThatThrownBy(() -> JSON.parse("[1 2]")).hasMessageContaining("position 3");
+        assertThatThrownBy(() -> JSON.parse("{\"a\" 1}")).isInstanceOf(JSON.JsonParseException.class);
+        assertThatThrownBy(() -> JSON.parse("[1, 2")).isInstanceOf(JSON.JsonParseException.class);
+        assertThatThrownBy(() -> JSON.parse("1 2")).isInstanceOf(JSON.JsonParseException.class);
+    }
+
+    @Test
+    void assertJsonParseCanParseUtf8Bytes() {
+        String input = "{\"név\": \"árvíztűrő tükörfúrógép\", \"scores\": [1, 2.5, null]}";
+        var json = (JSON.JSONObject) JSON.parse(input.getBytes(StandardCharsets.UTF_8));
+        assertThat(json.map.get(JSON.JSONString.of("név")).toString()).isEqualTo("\"árvíztűrő tükörfúrógép\"");
+        assertThat(json.toString()).isEqualTo(JSON.parse(input).toString());
+    }
+
+    @Test
+    void assertJsonParseCanParseDirectByteBufferWithoutMovingIt() {
+        byte[] bytes = "[\"apple\", 44, true]".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        var json = (JSON.JSONArray) JSON.parse(buffer);
+        assertThat(json.toString()).isEqualTo("[\"apple\", 44, true]");
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    void assertJsonParseCanParseMemoryMappedFile(@TempDir Path dir) throws IOException {
+        Path file = Files.writeString(dir.resolve("person.json"), "{ \"name\": \"Thomas\", \"age\" : 19 }");
+        var json = (JSON.JSONObject) JSON.parse(file);
+        assertThat(json.toString()).isEqualTo("{\"name\": \"Thomas\", \"age\": 19}");
+    }
+
+    @Test
+    void assertJsonParseReportsByteOffsetOfMalformedUtf8Input() {
+        assertThatThrownBy(() -> JSON.parse("[1,]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessageContaining("offset 3");
+    }
+
+    @Test
+    void assertLazyParseMaterializesOnlyAccessedValues() {
+        String input = """
+                {
+                    "id": 7234,
+                    "author": { "name": "Milton", "born": 1608 },
+                    "scores": [4, 2, [5, 6]]
+                }
+                """;
+        JSON json = JSON.parseLazy(input);
+        assertThat(json.get("id").toString()).isEqualTo("7234");
+        assertThat(json.get("author").get("name").toString()).isEqualTo("\"Milton\"");
+        assertThat(json.get("scores").get(2).get(1).toString()).isEqualTo("6");
+        assertThat(((JSON.JSONArray) json.get("scores")).size()).isEqualTo(3);
+        assertThat(((JSON.JSONObject) json).map).isNull();
+    }
+
+    @Test
+    void assertLazyParseReturnsNullForMissingValues() {
+        JSON json = JSON.parseLazy("{\"items\": [1, 2]}");
+        assertThat(json.get("missing")).isNull();
+        assertThat(json.get("items").get(2)).isNull();
+        assertThat(json.get(0)).isNull();
+    }
+
+    @Test
+    void assertLazyParseKeepsTheLastValueOfRepeatedNames() {
+        String input = "{\"a\": 1, \"b\": 2, \"\\u0061\": 3}";
+        var lazy = (JSON.JSONObject) JSON.parseLazy(input);
+        assertThat(lazy.get("a").toString()).isEqualTo("3");
+        assertThat(lazy.size()).isEqualTo(2);
+        assertThat(lazy.map).isNull();
+        assertThat(lazy.get("a").toString()).isEqualTo(JSON.parse(input).get("a").toString());
+        lazy.materialize();
+        assertThat(lazy.size()).isEqualTo(2);
+        assertThat(lazy.get("a").toString()).isEqualTo("3");
+    }
+
+    @Test
+    void assertLazyArrayItemsAreIndexedOnce() {
+        String input = IntStream.range(0, 50_000).mapToObj(i -> "[" + i + "]").collect(joining(", ", "[", "]"));
+        var array = (JSON.JSONArray) JSON.parseLazy(input);
+        long sum = 0;
+        for (int i = 0; i < array.size(); i++) sum += array.get(i).get(0).convert(Long.class);
+        assertThat(sum).isEqualTo(50_000L * 49_999 / 2);
+        assertThat(array.get(50_000)).isNull();
+        assertThat(array.items).isNull();
+        assertThat(array.items()).hasSize(50_000);
+        assertThat(array.get(49_999).toString()).isEqualTo("[49999]");
+    }
+
+    @Test
+    void assertLazyParseBuildsTheSameTreeAsParse() {
+        String input = "{\"a\": [{\"b\": [[1, 2], {\"c\": \"x, y: z\"}]}, [], true], \"d\": {}, \"e\": null}";
+        assertThat(JSON.parseLazy(input).toString()).isEqualTo(JSON.parse(input).toString());
+    }
+
+    @Test
+    void assertRepeatedKeysAreSharedAcrossDocuments() {
+        String input = "{\"type\": \"click\", \"user\": {\"type\": \"admin\"}}";
+        var first = (JSON.JSONObject) JSON.parse(input);
+        var second = (JSON.JSONObject) JSON.parse(input.getBytes(StandardCharsets.UTF_8));
+        var third = (JSON.JSONObject) JSON.parseLazy(input);
+        third.toString();
+        assertThat(second.keysInOrder.get(0)).isSameAs(first.keysInOrder.get(0));
+        assertThat(third.keysInOrder.get(0)).isSameAs(first.keysInOrder.get(0));
+        assertThat(((JSON.JSONObject) first.get("user")).keysInOrder.get(0)).isSameAs(first.keysInOrder.get(0));
+        assertThat(second.get("type")).isSameAs(first.get("type"));
+    }
+
+    @Test
+    void assertLongAndNonAsciiKeysAreParsedWithoutTheSymbolTable() {
+        String key = "k".repeat(100);
+        assertThat(JSON.parse("{\"" + key + "\": 1}").get(key).toString()).isEqualTo("1");
+        assertThat(JSON.parse("{\"árvíz\": \"tűrő\"}".getBytes(StandardCharsets.UTF_8)).get("árvíz").toString())
+                .isEqualTo("\"tűrő\"");
+    }
+
+    @Test
+    void assertParallelParseOfLargeArrayBuildsTheSameTreeAsParse() {
+        StringBuilder input = new StringBuilder("[");
+        for (int i = 0; i < 50_000; i++) {
+            if (i > 0) input.append(", ");
+            input.append(i % 2 == 0 ? "{\"s\": \"a, ] \\\\\\\", [\", \"n\": [" + i + ", {}]}" : "\"" + i + " ] \\\"\"");
+        }
+        String json = input.append("]").toString();
+        assertThat(json.length()).isGreaterThan(ParallelArrayParser.MIN_PARALLEL_LENGTH);
+        JSON parsed = JSON.parseParallel(json);
+        assertThat(parsed.toString()).isEqualTo(JSON.parse(json).toString());
+        assertThat(parsed.get(49_999).toString()).isEqualTo("\"49999 ] \\\"\"");
+    }
+
+    @Test
+    void assertParallelParseRejectsMalformedArrays() {
+        String items = "[" + "{\"a\": [1, 2, 3]}, ".repeat(100_000);
+        assertThatThrownBy(() -> JSON.parseParallel(items + "]")).isInstanceOf(JSON.JsonParseException.class);
+        assertThatThrownBy(() -> JSON.parseParallel(items + "1")).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessageStartingWith("Unterminated array");
+        assertThatThrownBy(() -> JSON.parseParallel(items + "1} ")).isInstanceOf(JSON.JsonParseException.class);
+    }
+
+    @Test
+    void assertFileIsParsedInSegments(@TempDir Path dir) throws IOException {
+        String items = "{\"s\": \"a, ] \\\\\\\", [\", \"n\": [1, {}]}, \"\u00e9 ] \\\"\", ".repeat(20_000);
+        String json = "[" + items + "7]  \n";
+        Path file = Files.writeString(dir.resolve("items.json"), json);
+        try (FileChannel channel = FileChannel.open(file)) {
+            assertThat(ParallelArrayParser.parse(channel, 1 << 16).toString()).isEqualTo(JSON.parse(json).toString());
+        }
+
+        Path malformed = Files.writeString(dir.resolve("malformed.json"), "[" + items + "1, 2,]");
+        String offset = "at byte offset " + (Files.size(malformed) - 1);
+        assertThatThrownBy(() -> JSON.parse(malformed)).hasMessageEndingWith(offset);
+        try (FileChannel channel = FileChannel.open(malformed)) {
+            assertThatThrownBy(() -> ParallelArrayParser.parse(channel, 1 << 16)).hasMessageEndingWith(offset);
+        }
+
+        Path trailing = Files.writeString(dir.resolve("trailing.json"), json + " ".repeat(1 << 17) + "1");
+        try (FileChannel channel = FileChannel.open(trailing)) {
+            assertThatThrownBy(() -> ParallelArrayParser.parse(channel, 1 << 16))
+                    .hasMessageStartingWith("Unexpected content after the end of the JSON value");
+        }
+
+        Path longItem = Files.writeString(dir.resolve("long.json"), "[1, \"" + "a".repeat(1 << 17) + "\"]");
+        try (FileChannel channel = FileChannel.open(longItem)) {
+            assertThatThrownBy(() -> ParallelArrayParser.parse(channel, 1 << 16))
+                    .hasMessage("Array item is longer than 65536 bytes at byte offset 3");
+        }
+
+        Path huge = dir.resolve("huge.json");
+        try (RandomAccessFile sparse = new RandomAccessFile(huge.toFile(), "rw")) {
+            sparse.setLength(1L << 31);
+        }
+        assertThatThrownBy(() -> JSON.parse(huge)).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("File is longer than 2147483647 bytes");
+        assertThatThrownBy(() -> JSON.fromBinary(huge)).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("File is longer than 2147483647 bytes");
+        assertThatThrownBy(() -> JSON.parseParallel(huge)).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Only a top-level array can be longer than 2147483647 bytes at byte offset 0");
+    }
+
+    @Test
+    void assertReusedParserGivesTheSameResults() {
+        JsonParser parser = new JsonParser();
+        String numbers = "[[1, 2, 3], [1.5, 2], [" + "7, ".repeat(100_000) + "7], [1, {\"a\": [2, 3]}]]";
+        assertThat(parser.parse(numbers).toString()).isEqualTo(JSON.parse(numbers).toString());
+        assertThat(parser.parse("[4, 5]").toString()).isEqualTo("[4, 5]");
+
+        assertThatThrownBy(() -> parser.parse("[[1, 2], [3,")).isInstanceOf(JSON.JsonParseException.class);
+        assertThat(parser.parse("[[1.5], [6]]").toString()).isEqualTo("[[1.5], [6]]");
+        assertThat(parser.parse("{\"a\": [1, 2]}".getBytes(StandardCharsets.UTF_8)).get("a").toString()).isEqualTo("[1, 2]");
+
+        parser.reset();
+        assertThat(parser.parse(" [8] ").toString()).isEqualTo("[8]");
+    }
+
+    @Test
+    void assertBinaryRoundTripGivesAnEqualTree() {
+        String input = "{\"a\": [1, -2, 9223372036854775807], \"b\": [1.5, 2], \"c\": [1, \"x\\\"y\", null, true, 1e400],"
+                + " \"d\": {\"a\": \"\u00e1rv\u00edzt\u0171r\u0151\", \"e\": []}, \"list\": [{\"id\": 1}, {\"id\": 2}]}";
+        JSON tree = JSON.parse(input);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.toBinary(out);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(out.size()).put(out.toByteArray()).flip();
+        for (ByteBuffer binary : List.of(ByteBuffer.wrap(out.toByteArray()), direct)) {
+            JSON decoded = JSON.fromBinary(binary);
+            assertThat(decoded.toString()).isEqualTo(tree.toString());
+            assertThat(decoded.get("list").get(0).get("id")).isInstanceOf(JSON.JSONNumber.class);
+            assertThat(binary.position()).isZero();
+        }
+        assertThat(out.size()).isLessThan(input.length());
+    }
+
+    @Test
+    void assertMalformedBinaryIsRejected() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSON.parse("{\"a\": [1, 2, 3]}").toBinary(out);
+        byte[] binary = out.toByteArray();
+
+        assertThatThrownBy(() -> JSON.fromBinary(ByteBuffer.wrap(binary, 0, binary.length - 1)))
+                .isInstanceOf(JSON.JsonParseException.class).hasMessageStartingWith("Unexpected end of binary JSON");
+        assertThatThrownBy(() -> JSON.fromBinary(ByteBuffer.wrap("[1]".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(JSON.JsonParseException.class).hasMessageStartingWith("Not a binary JSON document");
+    }
+}
@@ -0,0 +1,106 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonArrayPublisherTest {
+    @Test
+    void assertItemsAreReadOnlyWhenRequested() {
+        String items = IntStream.range(0, 10_000)
+                .mapToObj(i -> "{\"name\": \"item" + i + "\", \"price\": " + i + ".5, \"tipus\": \"part\"}")
+                .collect(joining(", "));
+        CountingInputStream in = new CountingInputStream("{\"meta\": {\"count\": 10000}, \"data\": {\"items\": ["
+                + items + "]}, \"tail\": true}");
+        RecordingSubscriber<AnnotatedItem> subscriber = new RecordingSubscriber<>();
+        new JsonArrayPublisher<>(in, JsonPath.compile("$.data.items"), AnnotatedItem.class, Runnable::run).subscribe(subscriber);
+        assertThat(in.bytesRead).isZero();
+
+        subscriber.subscription.request(2);
+        assertThat(subscriber.items).extracting(AnnotatedItem::getName).containsExactly("item0", "item1");
+        assertThat(in.bytesRead).isLessThan(16_384);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.items).hasSize(10_000);
+        assertThat(subscriber.items.get(9_999).getPrice()).isEqualTo(9_999.5);
+        assertThat(subscriber.items.get(9_999).getType()).isEqualTo("part");
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test
+    void assertErrorsAndCancellationStopTheItems() {
+        RecordingSubscriber<AnnotatedItem> failing = new RecordingSubscriber<>();
+        new JsonArrayPublisher<>(new CountingInputStream("[{\"name\": \"a\"}, {\"name\": }]"), JsonPath.compile("$"),
+                AnnotatedItem.class, Runnable::run).subscribe(failing);
+        failing.subscription.request(5);
+        assertThat(failing.items).hasSize(1);
+        assertThat(failing.error).isInstanceOf(JSON.JsonParseException.class);
+
+        RecordingSubscriber<Long> cancelled = new RecordingSubscriber<>();
+        new JsonArrayPublisher<>(new CountingInputStream("[1, 2, 3]"), JsonPath.compile("$"), Long.class, Runnable::run)
+                .subscribe(cancelled);
+        cancelled.subscription.request(1);
+        cancelled.subscription.cancel();
+        cancelled.subscription.request(5);
+        assertThat(cancelled.items).containsExactly(1L);
+        assertThat(cancelled.completed).isFalse();
+
+        RecordingSubscriber<Long> missing = new RecordingSubscriber<>();
+        new JsonArrayPublisher<>(new CountingInputStream("{\"a\": [1]}"), JsonPath.compile("$.b"), Long.class, Runnable::run)
+                .subscribe(missing);
+        missing.subscription.request(1);
+        assertThat(missing.items).isEmpty();
+        assertThat(missing.completed).isTrue();
+    }
+
+    private static final class CountingInputStream extends ByteArrayInputStream {
+        int bytesRead;
+
+        CountingInputStream(String json) {
+            super(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            int read = super.read(b, off, len);
+            if (read > 0) bytesRead += read;
+            return read;
+        }
+    }
+
+    private static final class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        Flow.Subscription subscription;
+        final List<T> items = new ArrayList<>();
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -1,16 +1,32 @@
 package hu.adamsan.jsonparser;
 
 import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import hu.adamsan.jsonparser.testmodels.Catalog;
 import hu.adamsan.jsonparser.testmodels.ComplexPerson;
+import hu.adamsan.jsonparser.testmodels.Coordinates;
+import hu.adamsan.jsonparser.testmodels.Items;
 import hu.adamsan.jsonparser.testmodels.Person;
+import hu.adamsan.jsonparser.testmodels.Temperature;
+import hu.adamsan.jsonparser.testmodels.Temperature_JsonBinder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class JsonConvertTest {
     @Test
@@ -47,6 +63,35 @@ public class JsonConvertTest {
         assertThat(new JSON.JSONNumber("56.159").convert(Float.class)).isEqualTo(56.159f);
     }
 
+    @Test
+    void testJsonNumberConversionToPrimitiveTypes() {
+        assertThat(new JSON.JSONNumber("98792291989151591").convert(long.class)).isEqualTo(98792291989151591L);
+        assertThat(new JSON.JSONNumber("-1.5e3").convert(int.class)).isEqualTo(-1500);
+        assertThat(new JSON.JSONNumber("0.1").convert(double.class)).isEqualTo(0.1);
+    }
+
+    @Test
+    void testJsonNumberKeepsNumbersOutOfPrimitiveRangeExactly() {
+        var number = new JSON.JSONNumber("92233720368547758070");
+        assertThat(number.convert(BigInteger.class)).isEqualTo(new BigInteger("92233720368547758070"));
+        assertThat(number.toString()).isEqualTo("92233720368547758070");
+        assertThat(new JSON.JSONNumber("1e400").convert(BigDecimal.class)).isEqualTo(new BigDecimal("1e400"));
+    }
+
+    @Test
+    void testJsonNumberParsesDoublesLikeTheJdk() {
+        for (String s : List.of("0.1", "3.14159265358979", "1e-7", "-2.5E+30", "123456789012345678901.5", "4.9e-324"))
+            assertThat(new JSON.JSONNumber(s).doubleValue()).isEqualTo(Double.parseDouble(s));
+    }
+
+    @Test
+    void testJsonNumberConversionRejectsFractionsAndOverflowForIntegerTypes() {
+        assertThatThrownBy(() -> new JSON.JSONNumber("3.5").convert(Integer.class))
+                .isInstanceOf(JSON.JSONNumber.JsonNumberConversionException.class);
+        assertThatThrownBy(() -> new JSON.JSONNumber("300").convert(Byte.class))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
     @Test
     void testJsonArrayConversionCanConvertToIntArray() {
         String input = "[1, 10, 20]";
@@ -160,6 +205,184 @@ public class JsonConvertTest {
         assertThat(items.get(1).getPrice()).isEqualTo(4);
         assertThat(items.get(1).getType()).isEqualTo("part");
     }
-}
 
+    @Test
+    void testClassBindingIsResolvedOncePerClass() {
+        var binding = ClassBinding.of(AnnotatedItem.class);
+        assertThat(ClassBinding.of(AnnotatedItem.class)).isSameAs(binding);
+        assertThat(binding.property("tipus").binding.rawType).isEqualTo(String.class);
+        assertThat(binding.property("price").binding.rawType).isEqualTo(Double.class);
+        assertThat(binding.property("type")).isNull();
+    }
+
+    @Test
+    void testJsonObjectConversionOfManyObjectsReusesBinding() {
+        String input = "[" + "{ \"name\" : \"gear\", \"price\" : 12, \"tipus\" : \"part\" },".repeat(999)
+                + "{ \"name\" : \"bearing\", \"price\" : 4.5, \"tipus\" : \"part\" }]";
+        var items = ((JSON.JSONArray) JSON.parse(input)).items.stream()
+                .map(json -> json.convert(AnnotatedItem.class))
+                .toList();
+        assertThat(items).hasSize(1000);
+        assertThat(items.get(999).getName()).isEqualTo("bearing");
+        assertThat(items.get(999).getPrice()).isEqualTo(4.5);
+    }
+
+    @Test
+    void testJsonObjectConversionFailsWithoutNoArgConstructor() {
+        assertThatThrownBy(() -> JSON.parse("{\"value\": 1}").convert(Integer.class))
+                .hasMessageStartingWith("Could not convert to class java.lang.Integer");
+    }
+
+    @Test
+    void testDirectParseToObjectMatchesConvert() {
+        String input = """
+                {
+                    "id" : 333,
+                    "name" : "clock",
+                    "unknown": { "nested": [1, {"deep": null}] },
+                    "items": [
+                        { "name" : "gear", "price" : 12, "tipus" : "part" },
+                        { "name" : "bearing", "price" : 4, "tipus" : "part" }
+                    ]
+                }
+                """;
+        var item = JSON.parse(input, ComplexPerson.class);
+        assertThat(item.getId()).isEqualTo(333);
+        assertThat(item.getName()).isEqualTo("clock");
+        assertThat(item.getItems()).hasSize(2);
+        assertThat(item.getItems().get(1).getName()).isEqualTo("bearing");
+        assertThat(item.getItems().get(1).getPrice()).isEqualTo(4);
+        assertThat(item.getItems().get(1).getType()).isEqualTo("part");
+    }
 
+    @Test
+    void testDirectParseToObjectWithNestedObjectsAndLists() {
+        String input = """
+                {
+                    "id": null,
+                    "firstName": "John",
+                    "lastName": [1,2,3,4,5],
+                    "items": { "name":"orange", "price": 25.5, "type": "food" },
+                    "age": 35,
+                    "friends": ["Rose", "Martha", "Donna"]
+                }
+                """;
+        Person person = JSON.parse(input, Person.class);
+        assertThat(person.getId()).isNull();
+        assertThat(person.getAge()).isEqualTo(35);
+        assertThat(person.getItems().getPrice()).isEqualTo(25.5);
+        assertThat(person.getLastName()).containsExactly(1, 2, 3, 4, 5);
+        assertThat(person.getFriends()).containsExactly("Rose", "Martha", "Donna");
+    }
+
+    @Test
+    void testDirectParseToGenericCollectionType() throws ReflectiveOperationException {
+        Type listOfItems = ComplexPerson.class.getDeclaredField("items").getGenericType();
+        List<AnnotatedItem> items = JSON.parse("[{\"name\": \"gear\", \"tipus\": \"part\"}, null]", listOfItems);
+        assertThat(items).hasSize(2);
+        assertThat(items.get(0).getType()).isEqualTo("part");
+        assertThat(items.get(1)).isNull();
+    }
+
+    @Test
+    void testDirectParseToUntypedValues() {
+        Map<String, Object> map = JSON.parse("{\"a\": [1, 2.5, \"s\", true], \"b\": {}}", Map.class);
+        assertThat(map).containsOnlyKeys("a", "b");
+        assertThat((List<Object>) map.get("a")).containsExactly(1, 2.5, "s", true);
+        assertThat(JSON.parse("[1, 10, 20]", int[].class)).containsExactly(1, 10, 20);
+    }
+
+    @Test
+    void testNumericArraysArePackedAndConvertedWithoutBoxing() {
+        var longs = (JSON.JSONArray) JSON.parse("[1, 10, 20]");
+        assertThat(longs.convert(long[].class)).containsExactly(1L, 10L, 20L);
+        assertThat(longs.convert(float[].class)).containsExactly(1f, 10f, 20f);
+        assertThat(longs.items.get(2)).isInstanceOf(JSON.JSONNumber.class);
+
+        var doubles = (JSON.JSONArray) JSON.parse("[3.14, 10, 20.5]");
+        assertThat(doubles.convert(double[].class)).containsExactly(3.14, 10, 20.5);
+        assertThat(doubles.toString()).isEqualTo("[3.14, 10, 20.5]");
+        assertThatThrownBy(() -> doubles.convert(int[].class))
+                .isInstanceOf(JSON.JSONNumber.JsonNumberConversionException.class);
+    }
+
+    @Test
+    void testMixedArraysFallBackToNodes() {
+        assertThat(JSON.parse("[1, 2, \"three\", 4]").toString()).isEqualTo("[1, 2, \"three\", 4]");
+        assertThat(JSON.parse("[0.5, 9007199254740993]").toString()).isEqualTo("[0.5, 9007199254740993]");
+    }
+
+    @Test
+    void testPackedArrayConversionToTypedCollection() throws ReflectiveOperationException {
+        Type listOfIntegers = Person.class.getDeclaredField("lastName").getGenericType();
+        var json = (JSON.JSONArray) JSON.parse("[1, 2, 3, 4, 5]");
+        List<Integer> list = json.convertCollection(List.class, listOfIntegers);
+        assertThat(list).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void testRegisteredBinderIsPreferredOverReflection() {
+        Coordinates coordinates = JSON.parse("{\"lat\": 47.5, \"lon\": 19.04, \"alt\": 100}").convert(Coordinates.class);
+        assertThat(coordinates.getLatitude()).isEqualTo(47.5);
+        assertThat(coordinates.getLongitude()).isEqualTo(19.04);
+
+        List<Coordinates> list = JSON.parse("[{\"lat\": 1}, {\"lon\": 2}]").convertCollection(List.class, Coordinates.class);
+        assertThat(list).extracting(Coordinates::getLongitude).containsExactly(0.0, 2.0);
+    }
+
+    @Test
+    void testBinderIsFoundThroughTheContextClassLoader(@TempDir Path dir) throws IOException {
+        Path services = dir.resolve("META-INF/services/" + JsonBinder.class.getName());
+        Files.createDirectories(services.getParent());
+        Files.writeString(services, Temperature_JsonBinder.class.getName() + "\n");
+
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        try (URLClassLoader child = new URLClassLoader(new URL[]{dir.toUri().toURL()}, original)) {
+            thread.setContextClassLoader(child);
+            assertThat(JSON.parse("{\"celsius\": 21.5}").convert(Temperature.class).getDegrees()).isEqualTo(21.5);
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    @Test
+    void testNestedGenericPropertiesAreConverted() {
+        String json = "{\"sections\": {\"fruit\": [{\"name\": \"orange\", \"price\": 25.5}], \"empty\": []},"
+                + " \"grid\": [[1, 2], [3]]}";
+        for (Catalog catalog : List.of(JSON.parse(json).convert(Catalog.class), JSON.parse(json, Catalog.class))) {
+            assertThat(catalog.getSections()).containsOnlyKeys("fruit", "empty");
+            assertThat(catalog.getSections().get("fruit").get(0).getPrice()).isEqualTo(25.5);
+            assertThat(catalog.getGrid()).containsExactly(List.of(1, 2), List.of(3));
+        }
+    }
+
+    @Test
+    void testTypeTokenConversion() {
+        TypeToken<Map<String, List<List<Integer>>>> type = new TypeToken<>() {
+        };
+        String json = "{\"a\": [[1, 2], []], \"b\": [[3]]}";
+        Map<String, List<List<Integer>>> converted = JSON.parse(json).convert(type);
+        assertThat(converted.get("a")).containsExactly(List.of(1, 2), List.of());
+        assertThat(JSON.parse(json, type)).isEqualTo(converted);
+        assertThat(type.getRawType()).isEqualTo(Map.class);
+
+        List<Person[]> people = JSON.parse("[[{\"firstName\": \"Ann\"}], []]").convert(new TypeToken<List<Person[]>>() {
+        });
+        assertThat(people.get(0)[0].getFirstName()).isEqualTo("Ann");
+        assertThat(people.get(1)).isEmpty();
+    }
+
+    @Test
+    void testGenericBindingsAreKeptByTheirOwners() {
+        TypeToken<List<List<Integer>>> type = new TypeToken<>() {
+        };
+        assertThat(type.binding()).isSameAs(type.binding());
+        assertThat(type.binding().item().item()).isSameAs(TypeBinding.of(Integer.class));
+        assertThat(TypeBinding.of(type.getType())).isNotSameAs(type.binding());
+
+        var sections = ClassBinding.of(Catalog.class).property("sections");
+        assertThat(ClassBinding.of(Catalog.class).property("sections").binding).isSameAs(sections.binding);
+        assertThat(sections.binding.value().item().rawType).isEqualTo(Items.class);
+    }
+}
@@ -0,0 +1,169 @@
+package hu.adamsan.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonFeederTest {
+    private static final String DOCUMENT = """
+            {
+                "id": 7234,
+                "title": "The \\"lost\\" paradise",
+                "scores": [4, 2.5, -1e3],
+                "author": { "name": "Milton", "born": 1608, "city": "London és Éden" },
+                "available": true,
+                "isbn": null
+            }
+            """;
+
+    @Test
+    void assertValueIsTheSameForAnyChunkSize() {
+        byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        String expected = JSON.parse(DOCUMENT).toString();
+        for (int chunk = 1; chunk <= bytes.length; chunk++) {
+            JsonFeeder feeder = new JsonFeeder();
+            JSON value = null;
+            for (int i = 0; i < bytes.length; i += chunk) {
+                feeder.feed(ByteBuffer.wrap(bytes, i, Math.min(chunk, bytes.length - i)));
+                if (value == null) value = feeder.nextValue();
+            }
+            feeder.endOfInput();
+            assertThat(value).hasToString(expected);
+            assertThat(feeder.nextToken()).isEqualTo(JsonToken.END_DOCUMENT);
+        }
+    }
+
+    @Test
+    void assertFeederAsksForMoreInputInsideTokens() {
+        JsonFeeder feeder = new JsonFeeder();
+        feeder.feed(utf8("{\"na"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.BEGIN_OBJECT);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NEED_MORE_INPUT);
+        feeder.feed(utf8("me\": 12"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NAME);
+        assertThat(feeder.getString()).isEqualTo("name");
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NEED_MORE_INPUT);
+        feeder.feed(utf8("3, \"items\": [{\"id\": 1}, {\"id\""));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NUMBER);
+        assertThat(feeder.getNumber()).isEqualTo("123");
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NAME);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.BEGIN_ARRAY);
+        assertThat(feeder.nextValue()).hasToString("{\"id\": 1}");
+        assertThat(feeder.nextValue()).isNull();
+        feeder.feed(utf8(": 2}]}"));
+        assertThat(feeder.nextValue()).hasToString("{\"id\": 2}");
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.END_ARRAY);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.END_OBJECT);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NEED_MORE_INPUT);
+        feeder.endOfInput();
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.END_DOCUMENT);
+    }
+
+    @Test
+    void assertItemsOfAStreamedArrayAreReadUntilPeekFindsItsEnd() {
+        byte[] bytes = "[{\"id\": 1}, \"a\", [2, 3], {\"id\": \"x\"}]".getBytes(StandardCharsets.UTF_8);
+        JsonFeeder feeder = new JsonFeeder();
+        List<String> items = new ArrayList<>();
+        int fed = 0;
+        feeder.feed(ByteBuffer.wrap(bytes, 0, 3));
+        fed += 3;
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.BEGIN_ARRAY);
+        while (true) {
+            JsonToken next = feeder.peek();
+            if (next == JsonToken.END_ARRAY) break;
+            JSON item = next == JsonToken.NEED_MORE_INPUT ? null : feeder.nextValue();
+            if (item != null) {
+                items.add(item.toString());
+            } else {
+                feeder.feed(ByteBuffer.wrap(bytes, fed, Math.min(3, bytes.length - fed)));
+                fed += 3;
+            }
+        }
+        assertThat(items).containsExactly("{\"id\": 1}", "\"a\"", "[2, 3]", "{\"id\": \"x\"}");
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.END_ARRAY);
+        feeder.endOfInput();
+        assertThat(feeder.peek()).isEqualTo(JsonToken.END_DOCUMENT);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.END_DOCUMENT);
+
+        feeder.reset();
+        feeder.feed(utf8("{\"name\": \"value\"}"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.BEGIN_OBJECT);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NAME);
+        assertThat(feeder.peek()).isEqualTo(JsonToken.STRING);
+        assertThat(feeder.getString()).isEqualTo("name");
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.STRING);
+        assertThat(feeder.getString()).isEqualTo("value");
+    }
+
+    @Test
+    void assertMalformedInputIsRejectedOnceItEnds() {
+        JsonFeeder feeder = new JsonFeeder();
+        feeder.feed(utf8("[1, 2"));
+        assertThat(feeder.nextValue()).isNull();
+        feeder.endOfInput();
+        assertThatThrownBy(feeder::nextValue).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Unexpected end of input at byte offset 5");
+
+        feeder.reset();
+        feeder.feed(utf8("[1,]"));
+        assertThatThrownBy(feeder::nextValue).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Unexpected character ']' at byte offset 3");
+
+        feeder.reset();
+        feeder.feed(utf8("42"));
+        assertThat(feeder.nextValue()).isNull();
+        feeder.endOfInput();
+        assertThat(feeder.nextValue()).hasToString("42");
+    }
+
+    @Test
+    void assertMalformedNumbersAreRejected() {
+        JsonFeeder feeder = new JsonFeeder();
+        feeder.feed(utf8("[1-2e+.,--]"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.BEGIN_ARRAY);
+        assertThatThrownBy(feeder::nextToken).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Invalid number '1-2e+.' at byte offset 1");
+
+        for (String number : new String[]{"-", "01", "1.", "1e", "1e+", "2.e3", "--1", "1.5.2"}) {
+            feeder.reset();
+            feeder.feed(utf8("[" + number + "]"));
+            assertThatThrownBy(feeder::nextValue).isInstanceOf(JSON.JsonParseException.class)
+                    .hasMessage("Invalid number '" + number + "' at byte offset 1");
+        }
+    }
+
+    @Test
+    void assertNumbersSplitAcrossChunksAreCheckedOnceComplete() {
+        JsonFeeder feeder = new JsonFeeder();
+        feeder.feed(utf8("[-"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.BEGIN_ARRAY);
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NEED_MORE_INPUT);
+        feeder.feed(utf8("1.5e"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NEED_MORE_INPUT);
+        feeder.feed(utf8("-3, 1e"));
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NUMBER);
+        assertThat(feeder.getNumber()).isEqualTo("-1.5e-3");
+        assertThat(feeder.nextToken()).isEqualTo(JsonToken.NEED_MORE_INPUT);
+        feeder.feed(utf8("]"));
+        assertThatThrownBy(feeder::nextToken).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Invalid number '1e' at byte offset 10");
+
+        feeder.reset();
+        feeder.feed(utf8("0"));
+        assertThat(feeder.nextValue()).isNull();
+        feeder.feed(utf8("7"));
+        feeder.endOfInput();
+        assertThatThrownBy(feeder::nextValue).isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Invalid number '07' at byte offset 0");
+    }
+
+    private static ByteBuffer utf8(String json) {
+        return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,111 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonLinesFileTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void assertRecordsAreReadByIndex() throws IOException {
+        Path file = dir.resolve("numbers.ndjson");
+        Files.writeString(file, IntStream.range(0, 100_000).mapToObj(i -> "{\"id\": " + i + "}").collect(joining("\n\n")));
+
+        JsonLinesFile lines = JsonLinesFile.open(file);
+        assertThat(lines.size()).isEqualTo(100_000);
+        assertThat(lines.record(76_543).toString()).isEqualTo("{\"id\": 76543}");
+        assertThat(lines.records(99_998, 100_000)).extracting(JSON::toString)
+                .containsExactly("{\"id\": 99998}", "{\"id\": 99999}");
+        assertThat(Files.exists(dir.resolve("numbers.ndjson.idx"))).isTrue();
+        assertThatThrownBy(() -> lines.record(100_000)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void assertIndexIsReusedUntilTheFileChanges() throws IOException {
+        Path file = dir.resolve("grows.ndjson");
+        Files.writeString(file, "{\"id\": 1}\n{\"id\": 2}\n");
+        Path index = dir.resolve("grows.ndjson.idx");
+
+        assertThat(JsonLinesFile.open(file).size()).isEqualTo(2);
+        Files.setLastModifiedTime(index, FileTime.fromMillis(0));
+        assertThat(JsonLinesFile.open(file).size()).isEqualTo(2);
+        assertThat(Files.getLastModifiedTime(index).toMillis()).isZero();
+
+        Files.writeString(file, "{\"id\": 3}\n", StandardOpenOption.APPEND);
+        JsonLinesFile grown = JsonLinesFile.open(file);
+        assertThat(grown.size()).isEqualTo(3);
+        assertThat(grown.record(2).toString()).isEqualTo("{\"id\": 3}");
+    }
+
+    @Test
+    void assertRecordsAreFoundByKey() throws IOException {
+        Path file = dir.resolve("items.ndjson");
+        Files.writeString(file, """
+                {"name": "gear", "price": 12.5, "tipus": "part"}
+                {"name": "spring", "price": 3}
+                {"name": {"nested": "gear"}}
+                [1, 2]
+                {"price": 3, "na\\u006de": "gear"}
+                """);
+
+        JsonLinesFile byName = JsonLinesFile.open(file, "name");
+        assertThat(byName.find("gear")).extracting(JSON::toString)
+                .containsExactly("{\"name\": \"gear\", \"price\": 12.5, \"tipus\": \"part\"}", "{\"price\": 3, \"name\": \"gear\"}");
+        assertThat(byName.find("gear", AnnotatedItem.class)).extracting(AnnotatedItem::getType).containsExactly("part", null);
+        assertThat(byName.find("bolt")).isEmpty();
+        assertThat(JsonLinesFile.open(file, "price").find("3")).hasSize(2);
+        assertThat(Files.exists(dir.resolve("items.ndjson.name.idx"))).isTrue();
+        assertThatThrownBy(() -> JsonLinesFile.open(file).find("gear")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void assertMalformedRecordsAreReportedWithLineNumbers() throws IOException {
+        Path file = dir.resolve("broken.ndjson");
+        Files.writeString(file, "{\"a\": 1}\r\n\n{\"a\": }\n");
+
+        JsonLinesFile lines = JsonLinesFile.open(file);
+        assertThat(lines.record(0).toString()).isEqualTo("{\"a\": 1}");
+        assertThatThrownBy(() -> lines.record(1))
+                .isInstanceOf(JSON.JsonLineException.class)
+                .hasMessageStartingWith("Line 3: ");
+
+        List<Long> errors = new ArrayList<>();
+        JsonLinesFile byA = JsonLinesFile.open(file, "a", e -> errors.add(e.getLineNumber()));
+        assertThat(errors).containsExactly(3L);
+        assertThat(byA.find("1")).extracting(JSON::toString).containsExactly("{\"a\": 1}");
+    }
+
+    @Test
+    void assertMalformedRecordsAreLeftOutOfTheKeyIndex() throws IOException {
+        Path file = dir.resolve("keys.ndjson");
+        Files.writeString(file, "{\"id\": 1}\n{\"id\": }\n{\"id\": [2]}\n{\"id\": 1, \"x\": true}\n");
+
+        JsonLinesFile byId = JsonLinesFile.open(file, "id");
+        assertThat(byId.find("1")).extracting(JSON::toString).containsExactly("{\"id\": 1}", "{\"id\": 1, \"x\": true}");
+        assertThat(byId.record(2).toString()).isEqualTo("{\"id\": [2]}");
+
+        Files.delete(dir.resolve("keys.ndjson.id.idx"));
+        assertThatThrownBy(() -> JsonLinesFile.open(file, "id", e -> {
+            throw e;
+        })).isInstanceOf(JSON.JsonLineException.class).hasMessageStartingWith("Line 2: ");
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.map(Path::getFileName).map(Path::toString)).containsExactlyInAnyOrder("keys.ndjson", "keys.ndjson.idx");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import hu.adamsan.jsonparser.testmodels.Measurement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static java.util.stream.Collectors.joining;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonLinesTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void assertLinesAreParsedInOrder() throws IOException {
+        Path file = dir.resolve("numbers.ndjson");
+        Files.writeString(file, IntStream.range(0, 100_000).mapToObj(i -> "{\"id\": " + i + "}").collect(joining("\n")));
+
+        List<JSON> lines = JSON.parseLines(file).toList();
+        assertThat(lines).hasSize(100_000);
+        for (int i = 0; i < lines.size(); i++) assertThat(lines.get(i).get("id").toString()).isEqualTo(String.valueOf(i));
+    }
+
+    @Test
+    void assertMalformedLinesAreReportedWithLineNumbers() throws IOException {
+        Path file = dir.resolve("broken.ndjson");
+        Files.writeString(file, "{\"a\": 1}\r\n\n{\"a\": }\n[1, 2]\n{\"a\"\n");
+
+        List<JSON.JsonLineException> errors = Collections.synchronizedList(new ArrayList<>());
+        List<String> lines = JSON.parseLines(file, errors::add).map(JSON::toString).toList();
+        assertThat(lines).containsExactly("{\"a\": 1}", "[1, 2]");
+        assertThat(errors).extracting(JSON.JsonLineException::getLineNumber).containsExactlyInAnyOrder(3L, 5L);
+
+        assertThatThrownBy(() -> JSON.parseLines(file).count())
+                .isInstanceOf(JSON.JsonLineException.class)
+                .hasMessageStartingWith("Line 3: ");
+    }
+
+    @Test
+    void assertLinesCanBeBoundToModels() throws IOException {
+        Path file = dir.resolve("items.ndjson");
+        Files.writeString(file, """
+                {"name": "gear", "price": 12.5, "tipus": "part"}
+                {"name": "spring", "price": "cheap"}
+                {"name": "hand", "tipus": "part"}
+                """);
+
+        List<Long> errors = Collections.synchronizedList(new ArrayList<>());
+        List<AnnotatedItem> items = JSON.parseLines(file, AnnotatedItem.class, e -> errors.add(e.getLineNumber())).toList();
+        assertThat(items).extracting(AnnotatedItem::getName).containsExactly("gear", "hand");
+        assertThat(items.get(0).getType()).isEqualTo("part");
+        assertThat(errors).containsExactly(2L);
+    }
+
+    @Test
+    void assertNumbersOutOfRangeOfTheFieldAreReportedWithLineNumbers() throws IOException {
+        Path file = dir.resolve("measurements.ndjson");
+        Files.writeString(file, """
+                {"channel": 3, "count": 12}
+                {"channel": 70000, "count": 1}
+                {"channel": 4, "count": 1.5}
+                {"channel": 5, "count": 100000000000000000000}
+                """);
+
+        List<Long> errors = new ArrayList<>();
+        List<Measurement> measurements = JSON.parseLines(file, Measurement.class, e -> errors.add(e.getLineNumber())).toList();
+        assertThat(measurements).extracting(Measurement::getChannel).containsExactly((short) 3, (short) 5);
+        assertThat(errors).containsExactlyInAnyOrder(2L, 3L);
+
+        assertThatThrownBy(() -> JSON.parseLines(file, Measurement.class).count())
+                .isInstanceOf(JSON.JsonLineException.class)
+                .hasMessageStartingWith("Line 2: ");
+    }
+
+    @Test
+    void assertLinesOfAnyLengthAreBoundInOrder() throws IOException {
+        Path file = dir.resolve("names.ndjson");
+        List<String> names = IntStream.range(0, 1000).mapToObj(i -> "é😀".repeat(i % 300)).toList();
+        Files.writeString(file, names.stream().map(name -> "{\"name\": \"" + name + "\"}").collect(joining("\n")));
+
+        List<AnnotatedItem> items = JSON.parseLines(file, AnnotatedItem.class).toList();
+        assertThat(items).extracting(AnnotatedItem::getName).isEqualTo(names);
+    }
+}
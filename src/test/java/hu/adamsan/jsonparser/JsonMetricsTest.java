@@ -0,0 +1,81 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.JsonMetrics.Operation;
+import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonMetricsTest {
+    private static final String ITEMS = "[{\"name\": \"gear\", \"price\": 12.5}, {\"name\": \"spring\", \"price\": 3}]";
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void removeMetrics() {
+        JSON.setMetrics(null);
+    }
+
+    @Test
+    void assertRecorderCountsEachOperationOnce() {
+        JsonMetricsRecorder recorder = new JsonMetricsRecorder();
+        JSON.setMetrics(recorder);
+
+        JSON items = JSON.parse(ITEMS);
+        AnnotatedItem item = items.get(0).convert(AnnotatedItem.class);
+        items.convert(AnnotatedItem[].class);
+        JSON.write(item, new StringBuilder());
+
+        assertThat(recorder.count(Operation.PARSE)).isEqualTo(1);
+        assertThat(recorder.totalSize(Operation.PARSE)).isEqualTo(ITEMS.length());
+        assertThat(recorder.count(Operation.CONVERT)).isEqualTo(2);
+        assertThat(recorder.count(Operation.WRITE)).isEqualTo(1);
+        assertThat(recorder.latencyPercentile(Operation.PARSE, 99)).isPositive();
+        assertThat(recorder.latencyPercentile(Operation.WRITE, 50)).isLessThanOrEqualTo(recorder.latencyPercentile(Operation.WRITE, 100));
+    }
+
+    @Test
+    void assertBindingCountsAsParsingOnly() {
+        JsonMetricsRecorder recorder = new JsonMetricsRecorder();
+        JSON.setMetrics(recorder);
+
+        int[][] grid = JSON.parse("[[1, 2], [3]]", int[][].class);
+
+        assertThat(grid).isDeepEqualTo(new int[][]{{1, 2}, {3}});
+        assertThat(recorder.count(Operation.PARSE)).isEqualTo(1);
+        assertThat(recorder.count(Operation.CONVERT)).isZero();
+    }
+
+    @Test
+    void assertFlightRecorderEventsDescribeTheDocument() throws IOException {
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("hu.adamsan.jsonparser.Parse").withThreshold(Duration.ZERO);
+            recording.enable("hu.adamsan.jsonparser.Convert").withThreshold(Duration.ZERO);
+            recording.start();
+            JSON.parse(ITEMS).convert(AnnotatedItem[].class);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().startsWith("hu.adamsan.jsonparser")).toList();
+        assertThat(events).extracting(e -> e.getEventType().getName())
+                .containsExactly("hu.adamsan.jsonparser.Parse", "hu.adamsan.jsonparser.Convert");
+        assertThat(events.get(0).getLong("size")).isEqualTo(ITEMS.length());
+        assertThat(events.get(0).getInt("nodes")).isEqualTo(7);
+        assertThat(events.get(0).getInt("maxDepth")).isEqualTo(2);
+        assertThat(events.get(1).getClass("targetClass").getName()).isEqualTo(AnnotatedItem[].class.getName());
+    }
+}
@@ -0,0 +1,85 @@
+package hu.adamsan.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class JsonPathTest {
+    private static final String ORDER = """
+            {
+                "user": { "id": 42, "name": "Ann \\"the [first]\\"" },
+                "items": [
+                    { "price": 1.5, "tags": ["a", { "x": "}" }] },
+                    { "price": 20 },
+                    { "discount": true }
+                ],
+                "shipping address": ["Main street", 12]
+            }
+            """;
+
+    @Test
+    void assertPathSelectsValues() {
+        assertThat(JsonPath.compile("$.user.id").extract(ORDER).toString()).isEqualTo("[42]");
+        assertThat(JsonPath.compile("$.user.name").extract(ORDER).toString()).isEqualTo("[\"Ann \\\"the [first]\\\"\"]");
+        assertThat(JsonPath.compile("$.items[*].price").extract(ORDER).toString()).isEqualTo("[1.5, 20]");
+        assertThat(JsonPath.compile("$.items[0].tags[1].x").extract(ORDER).toString()).isEqualTo("[\"}\"]");
+        assertThat(JsonPath.compile("$['shipping address'][1]").extract(ORDER).toString()).isEqualTo("[12]");
+        assertThat(JsonPath.compile("$.user.*").extract(ORDER)).hasSize(2);
+    }
+
+    @Test
+    void assertMissingPathsSelectNothing() {
+        assertThat(JsonPath.compile("$.user.email").extract(ORDER)).isEmpty();
+        assertThat(JsonPath.compile("$.items[3]").extract(ORDER)).isEmpty();
+        assertThat(JsonPath.compile("$.user.id.value").extract(ORDER)).isEmpty();
+    }
+
+    @Test
+    void assertPathSelectsFromBytesAndConverts() {
+        byte[] bytes = ORDER.getBytes(StandardCharsets.UTF_8);
+        assertThat(JsonPath.compile("$.items[*].price").extract(bytes).toString()).isEqualTo("[1.5, 20]");
+        assertThat(JsonPath.compile("$.items[*].price").extract(bytes, Double.class)).containsExactly(1.5, 20.0);
+        assertThat(JsonPath.compile("$.user.id").extract(ORDER, Integer.class)).isEqualTo(List.of(42));
+    }
+
+    @Test
+    void assertEscapedKeysAndQuotedNamesMatch() {
+        String json = "{\"na\\u006de\": 1, \"a\\\"b\": 2, \"a]b\": 3, \"\u00e9\\u00e9\": 4}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (String path : new String[]{"$.name", "$['a\"b']", "$['a]b']", "$[\"a]b\"]", "$.\u00e9\u00e9"}) {
+            assertThat(JsonPath.compile(path).extract(json)).as(path).hasSize(1);
+            assertThat(JsonPath.compile(path).extract(bytes)).as(path).hasToString(JsonPath.compile(path).extract(json).toString());
+        }
+        assertThat(JsonPath.compile("$['a]b']").extract(json).toString()).isEqualTo("[3]");
+        assertThatThrownBy(() -> JsonPath.compile("$['a]")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JsonPath.compile("$['a'b]")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void assertInvalidPathsAndDocumentsAreRejected() {
+        assertThatThrownBy(() -> JsonPath.compile("user.id")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JsonPath.compile("$.items[first]")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> JsonPath.compile("$.items[*]").extract("{\"items\": [1, 2"))
+                .isInstanceOf(JSON.JsonParseException.class);
+    }
+
+    @Test
+    void assertManyMatchesOfOneLargeDocumentAreExtractedInLinearTime() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200_000; i++) json.append(i == 0 ? "" : ",").append("{\"name\":\"item").append(i).append("\",\"v\":").append(i).append('}');
+        String text = json.append(']').toString();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        JsonPath path = JsonPath.compile("$[*].name");
+        List<JSON> names = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> path.extract(text));
+        List<JSON> fromBytes = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> path.extract(bytes));
+        assertThat(names).hasSize(200_000);
+        assertThat(fromBytes).hasSize(200_000);
+        assertThat(names.get(199_999).toString()).isEqualTo("\"item199999\"");
+    }
+}
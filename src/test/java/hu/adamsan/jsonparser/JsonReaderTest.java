@@ -0,0 +1,84 @@
+package hu.adamsan.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonReaderTest {
+    private static final String DOCUMENT = """
+            {
+                "id": 7234,
+                "title": "The lost paradise",
+                "scores": [4, 2.5, -1e3],
+                "author": { "name": "Milton", "born": 1608 },
+                "available": true,
+                "isbn": null
+            }
+            """;
+
+    @Test
+    void assertReaderReportsTokensInOrder() {
+        var reader = new JsonReader(new StringReader(DOCUMENT));
+        reader.beginObject();
+        assertThat(reader.nextName()).isEqualTo("id");
+        assertThat(reader.nextLong()).isEqualTo(7234);
+        assertThat(reader.nextName()).isEqualTo("title");
+        assertThat(reader.nextString()).isEqualTo("The lost paradise");
+        assertThat(reader.nextName()).isEqualTo("scores");
+        reader.beginArray();
+        assertThat(reader.nextNumber()).isEqualTo("4");
+        assertThat(reader.nextDouble()).isEqualTo(2.5);
+        assertThat(reader.peek()).isEqualTo(JsonToken.NUMBER);
+        assertThat(reader.nextNumber()).isEqualTo("-1e3");
+        assertThat(reader.hasNext()).isFalse();
+        reader.endArray();
+        assertThat(reader.nextName()).isEqualTo("author");
+        reader.skipValue();
+        assertThat(reader.nextName()).isEqualTo("available");
+        assertThat(reader.nextBoolean()).isTrue();
+        assertThat(reader.nextName()).isEqualTo("isbn");
+        assertThat(reader.peek()).isEqualTo(JsonToken.NULL);
+        reader.nextNull();
+        reader.endObject();
+        assertThat(reader.peek()).isEqualTo(JsonToken.END_DOCUMENT);
+    }
+
+    @Test
+    void assertReaderCanHandOverSubTrees() {
+        var reader = new JsonReader(new StringReader(DOCUMENT));
+        reader.beginObject();
+        while (!reader.nextName().equals("author")) reader.skipValue();
+        var author = (JSON.JSONObject) reader.readTree();
+        assertThat(author.toString()).isEqualTo("{\"name\": \"Milton\", \"born\": 1608}");
+    }
+
+    @Test
+    void assertReaderReadsTheSameTreeAsParse() {
+        var reader = new JsonReader(new ByteArrayInputStream(DOCUMENT.getBytes(StandardCharsets.UTF_8)));
+        assertThat(reader.readTree().toString()).isEqualTo(JSON.parse(DOCUMENT).toString());
+    }
+
+    @Test
+    void assertReaderHandlesValuesLongerThanItsBuffer() {
+        String longValue = "x".repeat(20_000) + "\\\"" + "y".repeat(10_000);
+        var reader = new JsonReader(new StringReader("[\"" + longValue + "\", 1]"));
+        reader.beginArray();
+        assertThat(reader.nextString()).isEqualTo("x".repeat(20_000) + "\"" + "y".repeat(10_000));
+        assertThat(reader.nextLong()).isEqualTo(1);
+        reader.endArray();
+    }
+
+    @Test
+    void assertReaderRejectsMalformedInput() {
+        assertThatThrownBy(() -> new JsonReader(new StringReader("[1,]")).readTree())
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessageContaining("position 3");
+        assertThatThrownBy(() -> new JsonReader(new StringReader("{\"a\" 1}")).skipValue())
+                .isInstanceOf(JSON.JsonParseException.class);
+    }
+}
@@ -37,5 +37,28 @@ public class JsonToStringTest {
         assertThat(new JSON.JSONObject(obj).toString()).isEqualTo(obj);
     }
 
+    @Test
+    void assertJsonCanBeWrittenCompactOrPretty() {
+        JSON json = JSON.parse("{\"id\": 7234, \"scores\": [4, 2.5], \"tags\": [], \"author\": {\"name\": \"Milton\"}}");
+
+        StringBuilder compact = new StringBuilder();
+        json.writeTo(compact);
+        assertThat(compact.toString()).isEqualTo("{\"id\":7234,\"scores\":[4,2.5],\"tags\":[],\"author\":{\"name\":\"Milton\"}}");
+
+        StringBuilder pretty = new StringBuilder();
+        json.writeTo(pretty, true);
+        assertThat(pretty.toString()).isEqualTo("""
+                {
+                  "id": 7234,
+                  "scores": [
+                    4,
+                    2.5
+                  ],
+                  "tags": [],
+                  "author": {
+                    "name": "Milton"
+                  }
+                }""");
+    }
 
 }
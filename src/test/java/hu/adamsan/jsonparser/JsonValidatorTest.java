@@ -0,0 +1,80 @@
+package hu.adamsan.jsonparser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonValidatorTest {
+    private static final String DOCUMENT = """
+            {
+                "id": 7234,
+                "title": "The \\"lost\\" paradise \\u00e9",
+                "scores": [4, 2.5, -1e3, -0],
+                "author": { "name": "Milton", "city": "London és Éden 😀" },
+                "available": true,
+                "isbn": null,
+                "editions": [[], {}]
+            }
+            """;
+
+    @Test
+    void assertValidDocumentPassesForEveryInput() {
+        byte[] bytes = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        assertThatCode(() -> JSON.validate(DOCUMENT)).doesNotThrowAnyException();
+        assertThatCode(() -> JSON.validate(bytes)).doesNotThrowAnyException();
+        assertThatCode(() -> JSON.validate(new ByteArrayInputStream(bytes))).doesNotThrowAnyException();
+    }
+
+    @Test
+    void assertInvalidDocumentsAreRejectedAtTheFirstProblem() {
+        assertRejected("", "Unexpected end of input at position 0");
+        assertRejected("[1, 2,]", "Unexpected character ']' at position 6");
+        assertRejected("{\"a\": 1,}", "Expected a property name at position 8");
+        assertRejected("[01]", "Leading zero in a number at position 1");
+        assertRejected("[1.]", "Expected a digit at position 3");
+        assertRejected("\"a\tb\"", "Unescaped control character in a string at position 2");
+        assertRejected("\"a\\xb\"", "Invalid escape sequence at position 2");
+        assertRejected("[1] 2", "Unexpected content after the end of the JSON value at position 4");
+        assertThatThrownBy(() -> JSON.validate("[\"a\uD800\"]"))
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Unpaired surrogate at position 3");
+        assertThatThrownBy(() -> JSON.validate(new byte[]{'[', '"', 'a', (byte) 0xED, (byte) 0xA0, (byte) 0x80, '"', ']'}))
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Invalid UTF-8 sequence at byte offset 3");
+        assertThatThrownBy(() -> JSON.validate(new byte[]{'"', (byte) 0xC0, (byte) 0x80, '"'}))
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Invalid UTF-8 sequence at byte offset 1");
+        assertThatThrownBy(() -> JSON.validate(new ByteArrayInputStream("[true, fals]".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage("Expected 'false' at byte offset 11");
+    }
+
+    @Test
+    void assertLimitsAreEnforced() {
+        assertThatThrownBy(() -> JSON.validate("[[[1]]]", JsonLimits.defaults().withMaxDepth(2)))
+                .hasMessage("Nesting deeper than 2 at position 2");
+        assertThatThrownBy(() -> JSON.validate("[\"abcd\"]", JsonLimits.defaults().withMaxStringLength(3)))
+                .hasMessage("String longer than 3 at position 5");
+        assertThatThrownBy(() -> JSON.validate("[1234]", JsonLimits.defaults().withMaxNumberLength(3)))
+                .hasMessage("Number longer than 3 at position 4");
+        assertThatThrownBy(() -> JSON.validate("[1, 2]".getBytes(StandardCharsets.UTF_8), JsonLimits.defaults().withMaxSize(5)))
+                .hasMessage("Input larger than 5 at byte offset 5");
+        assertThatThrownBy(() -> JSON.validate("[".repeat(1001) + "]".repeat(1001)))
+                .hasMessage("Nesting deeper than 1000 at position 1000");
+        int depth = 100_000;
+        assertThatCode(() -> JSON.validate("[".repeat(depth) + "]".repeat(depth), JsonLimits.defaults().withMaxDepth(depth)))
+                .doesNotThrowAnyException();
+    }
+
+    private static void assertRejected(String json, String message) {
+        assertThatThrownBy(() -> JSON.validate(json))
+                .isInstanceOf(JSON.JsonParseException.class)
+                .hasMessage(message);
+        assertThatThrownBy(() -> JSON.validate(json.getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(JSON.JsonParseException.class);
+    }
+}
@@ -0,0 +1,111 @@
+package hu.adamsan.jsonparser;
+
+import hu.adamsan.jsonparser.testmodels.AnnotatedItem;
+import hu.adamsan.jsonparser.testmodels.ComplexPerson;
+import hu.adamsan.jsonparser.testmodels.Coordinates;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonWriteTest {
+    @Test
+    void assertModelCanBeWrittenWithRenamedProperties() {
+        var item = new AnnotatedItem();
+        item.setName("gear");
+        item.setPrice(12.5);
+        item.setType("part");
+
+        var out = new StringBuilder();
+        JSON.write(item, out);
+        assertThat(out.toString()).isEqualTo("{\"name\":\"gear\",\"price\":12.5,\"tipus\":\"part\"}");
+    }
+
+    @Test
+    void assertNestedModelRoundTrips() {
+        var gear = new AnnotatedItem();
+        gear.setName("gear");
+        var person = new ComplexPerson();
+        person.setId(333);
+        person.setName("clock");
+        person.setItems(List.of(gear));
+
+        var out = new StringBuilder();
+        JSON.write(person, out);
+        assertThat(out.toString())
+                .isEqualTo("{\"id\":333,\"name\":\"clock\",\"items\":[{\"name\":\"gear\",\"price\":null,\"tipus\":null}]}");
+
+        var parsed = JSON.parse(out.toString(), ComplexPerson.class);
+        assertThat(parsed.getId()).isEqualTo(333);
+        assertThat(parsed.getItems().get(0).getName()).isEqualTo("gear");
+    }
+
+    @Test
+    void assertCollectionsArraysAndScalarsCanBeWritten() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("ints", new int[]{1, -2, 3});
+        map.put("doubles", new double[]{3.14, 20.5});
+        map.put("set", Set.of("apple"));
+        map.put("flag", true);
+        map.put("missing", null);
+
+        var out = new StringBuilder();
+        JSON.write(map, out);
+        assertThat(out.toString())
+                .isEqualTo("{\"ints\":[1,-2,3],\"doubles\":[3.14,20.5],\"set\":[\"apple\"],\"flag\":true,\"missing\":null}");
+    }
+
+    @Test
+    void assertPrimitivePropertiesAreWrittenAsTheirValues() {
+        var coordinates = JSON.parse("{\"lat\": 47.4979, \"lon\": -19.04}").convert(Coordinates.class);
+
+        var out = new StringBuilder();
+        JSON.write(List.of(coordinates, new double[]{1e300, Double.NaN}), out);
+        assertThat(out.toString()).isEqualTo("[{\"lat\":47.4979,\"lon\":-19.04},[1.0E300,null]]");
+    }
+
+    @Test
+    void assertDoublesAreWrittenLikeDoubleToString() {
+        var random = new Random(42);
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i += 4) {
+            values[i] = Math.round(random.nextDouble() * 1e6) / 1e4;
+            values[i + 1] = -Math.round(random.nextDouble() * 1e9) / 1e6;
+            values[i + 2] = random.nextDouble() * Math.pow(10, random.nextInt(14) - 4);
+            values[i + 3] = Math.round(random.nextDouble() * 1e7) / Math.pow(10, random.nextInt(11));
+        }
+        for (double value : new double[]{0.001, 9999999.5, 0.1, 0.30000000000000004, 1.0, -0.0, 1e-5, 1e7}) {
+            assertDoubleIsWrittenLikeDoubleToString(value);
+        }
+        for (double value : values) assertDoubleIsWrittenLikeDoubleToString(value);
+    }
+
+    private static void assertDoubleIsWrittenLikeDoubleToString(double value) {
+        var text = new StringBuilder();
+        var out = new JsonOutput(text);
+        out.writeDouble(value);
+        out.flush();
+        assertThat(text.toString()).as("%s", value).isEqualTo(Double.toString(value));
+    }
+
+    @Test
+    void assertStringsAreEscaped() {
+        var out = new StringBuilder();
+        JSON.write("say \"hi\"\n\\ \u0001", out);
+        assertThat(out.toString()).isEqualTo("\"say \\\"hi\\\"\\n\\\\ \\u0001\"");
+    }
+
+    @Test
+    void assertOutputStreamReceivesUtf8() {
+        var out = new ByteArrayOutputStream();
+        JSON.write(List.of("árvíztűrő", 98792291989151591L), out);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[\"árvíztűrő\",98792291989151591]");
+    }
+}
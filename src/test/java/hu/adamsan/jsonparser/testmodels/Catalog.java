@@ -0,0 +1,14 @@
+package hu.adamsan.jsonparser.testmodels;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class Catalog {
+    private Map<String, List<Items>> sections;
+    private List<List<Integer>> grid;
+}
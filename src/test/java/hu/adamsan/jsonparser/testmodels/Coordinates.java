@@ -0,0 +1,24 @@
+package hu.adamsan.jsonparser.testmodels;
+
+import hu.adamsan.jsonparser.JsonModel;
+import hu.adamsan.jsonparser.JsonPropertyName;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Has no public constructor, so it can only be converted through its {@link Coordinates_JsonBinder}.
+ * The tests of this module are not compiled with the processor, so the binder is its output checked in,
+ * which the processor module's tests compare with what it generates now.
+ */
+@Getter
+@Setter
+@JsonModel
+public class Coordinates {
+    @JsonPropertyName(name = "lat")
+    private double latitude;
+    @JsonPropertyName(name = "lon")
+    private double longitude;
+
+    Coordinates() {
+    }
+}
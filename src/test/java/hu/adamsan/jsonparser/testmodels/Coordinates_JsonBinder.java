@@ -0,0 +1,29 @@
+package hu.adamsan.jsonparser.testmodels;
+
+import hu.adamsan.jsonparser.JSON;
+import hu.adamsan.jsonparser.JsonBinder;
+
+@javax.annotation.processing.Generated("hu.adamsan.jsonparser.processor.JsonBinderProcessor")
+public final class Coordinates_JsonBinder implements JsonBinder<hu.adamsan.jsonparser.testmodels.Coordinates> {
+    @Override
+    public Class<hu.adamsan.jsonparser.testmodels.Coordinates> type() {
+        return hu.adamsan.jsonparser.testmodels.Coordinates.class;
+    }
+
+    @Override
+    public hu.adamsan.jsonparser.testmodels.Coordinates newInstance() {
+        return new hu.adamsan.jsonparser.testmodels.Coordinates();
+    }
+
+    @Override
+    public boolean set(hu.adamsan.jsonparser.testmodels.Coordinates target, String jsonPropertyName, JSON value) {
+        switch (jsonPropertyName) {
+            case "lat" -> target.setLatitude(value.convert(double.class));
+            case "lon" -> target.setLongitude(value.convert(double.class));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
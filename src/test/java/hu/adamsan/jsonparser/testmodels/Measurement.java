@@ -0,0 +1,13 @@
+package hu.adamsan.jsonparser.testmodels;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigInteger;
+
+@Getter
+@Setter
+public class Measurement {
+    private short channel;
+    private BigInteger count;
+}
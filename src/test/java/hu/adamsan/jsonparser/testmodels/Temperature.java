@@ -0,0 +1,13 @@
+package hu.adamsan.jsonparser.testmodels;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Its {@link Temperature_JsonBinder} is not registered with the tests, only in a child class loader of a test.
+ */
+@Getter
+@Setter
+public class Temperature {
+    private double degrees;
+}
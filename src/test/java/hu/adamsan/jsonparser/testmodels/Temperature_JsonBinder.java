@@ -0,0 +1,26 @@
+package hu.adamsan.jsonparser.testmodels;
+
+import hu.adamsan.jsonparser.JSON;
+import hu.adamsan.jsonparser.JsonBinder;
+
+/**
+ * Reads the degrees from a "celsius" property, which reflection would skip.
+ */
+public final class Temperature_JsonBinder implements JsonBinder<Temperature> {
+    @Override
+    public Class<Temperature> type() {
+        return Temperature.class;
+    }
+
+    @Override
+    public Temperature newInstance() {
+        return new Temperature();
+    }
+
+    @Override
+    public boolean set(Temperature target, String jsonPropertyName, JSON value) {
+        if (!jsonPropertyName.equals("celsius")) return false;
+        target.setDegrees(value.convert(double.class));
+        return true;
+    }
+}